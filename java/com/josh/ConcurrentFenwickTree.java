@@ -0,0 +1,108 @@
+package com.josh;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Fenwick tree that many threads can add to and query at the same time without
+ * locks, eg a latency histogram updated on every request. Indices are one
+ * based, as in {@link FenwickTree}.
+ *
+ * The cells are kept in {@link AtomicLongArray}s, and add is an atomic add on
+ * each cell of its path. The cells near the top of the tree are on the path of
+ * a large share of all indices, so under many writers they become the hot
+ * spot. As in LongAdder, the tree is split into stripes. Each is a full tree
+ * in its own array, and a thread always adds to the stripe picked by its id.
+ * Threads on different stripes then write to different cache lines. A query
+ * sums its path over every stripe, so stripes trade query time for update
+ * throughput.
+ *
+ * A prefix sum is never torn by a concurrent add. The cells on the path of
+ * prefixSum(k) cover disjoint ranges of [1, k], so an add at any index up to k
+ * touches exactly one of them. Each concurrent add is therefore either fully
+ * counted or not at all, and every add that finished before the query started
+ * is counted. sum(i, j) takes two prefix sums, so an add landing between them
+ * can be counted in one but not the other.
+ */
+public class ConcurrentFenwickTree {
+    /** Most stripes used by default, however many processors there are */
+    private static final int MAX_DEFAULT_STRIPES = 16;
+
+    private final AtomicLongArray[] stripes;
+    private final int size;
+
+    /** One stripe per processor, up to MAX_DEFAULT_STRIPES */
+    public ConcurrentFenwickTree(int size) {
+        this(size, Math.min(MAX_DEFAULT_STRIPES, Runtime.getRuntime().availableProcessors()));
+    }
+
+    /** stripes is rounded up to a power of two. One stripe means no striping */
+    public ConcurrentFenwickTree(int size, int stripes) {
+        if (size < 0)
+            throw new IllegalArgumentException("Invalid size: " + size);
+        if (stripes <= 0 || stripes > 1 << 16)
+            throw new IllegalArgumentException("Invalid number of stripes: " + stripes);
+
+        this.size = size;
+        this.stripes = new AtomicLongArray[next2Power(stripes)];
+        for (int i = 0; i < this.stripes.length; ++i)
+            this.stripes[i] = new AtomicLongArray(size + 1);
+    }
+
+    private static int next2Power(int n) {
+        return n == 1 ? 1 : Integer.highestOneBit(n - 1) << 1;
+    }
+
+    /** Fetches value of the least significant bit */
+    private int lsb(int i) {
+        return i & -i;
+    }
+
+    /** The stripe the current thread adds to */
+    @SuppressWarnings("deprecation")
+    private AtomicLongArray stripe() {
+        if (stripes.length == 1)
+            return stripes[0];
+        int h = (int) Thread.currentThread().getId() * 0x9E3779B9;
+        return stripes[(h ^ (h >>> 16)) & (stripes.length - 1)];
+    }
+
+    /** Add a value to a certain index. (one based) */
+    public void add(int index, long toAdd) {
+        if (index <= 0 || index > size)
+            throw new IllegalArgumentException("Index out of bounds: " + index);
+
+        AtomicLongArray tree = stripe();
+        while (index <= size) {
+            tree.getAndAdd(index, toAdd);
+            index += lsb(index);
+        }
+    }
+
+    public long prefixSum(int i) {
+        if (i < 0 || i > size)
+            throw new IllegalArgumentException("Index out of bounds: " + i);
+
+        long sum = 0;
+        for (AtomicLongArray tree : stripes) {
+            for (int k = i; k > 0; k &= ~lsb(k))
+                sum += tree.get(k);
+        }
+        return sum;
+    }
+
+    /** Find the sum of a range */
+    public long sum(int i, int j) {
+        if (i > j)
+            throw new IllegalArgumentException("Ensure j >= i");
+
+        return prefixSum(j) - prefixSum(i - 1);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int stripes() {
+        return stripes.length;
+    }
+}
@@ -0,0 +1,109 @@
+package com.josh;
+
+import java.util.Random;
+
+/**
+ * Records random latencies into a histogram of BUCKETS buckets from an
+ * increasing number of threads, with one prefix sum every QUERY_EVERY adds,
+ * and prints the time taken by: a {@link FenwickTree} behind a lock, a
+ * {@link ConcurrentFenwickTree} with a single stripe, and one with a stripe
+ * per processor. Every run must end with the same total.
+ */
+public class ConcurrentFenwickTreeBenchmark {
+    private static final int BUCKETS = 4096;
+    private static final int OPERATIONS = 1 << 24;
+    private static final int QUERY_EVERY = 64;
+
+    /** Adds and prefix sums of one variant */
+    private interface Histogram {
+        void add(int index, long toAdd);
+
+        long prefixSum(int i);
+    }
+
+    private static class LockedFenwickTree implements Histogram {
+        private final FenwickTree tree = new FenwickTree(BUCKETS);
+
+        @Override
+        public synchronized void add(int index, long toAdd) {
+            tree.add(index, toAdd);
+        }
+
+        @Override
+        public synchronized long prefixSum(int i) {
+            return tree.prefixSum(i);
+        }
+    }
+
+    private static class Concurrent implements Histogram {
+        private final ConcurrentFenwickTree tree;
+
+        Concurrent(int stripes) {
+            tree = new ConcurrentFenwickTree(BUCKETS, stripes);
+        }
+
+        @Override
+        public void add(int index, long toAdd) {
+            tree.add(index, toAdd);
+        }
+
+        @Override
+        public long prefixSum(int i) {
+            return tree.prefixSum(i);
+        }
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        int maxThreads = args.length > 0 ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+
+        // latencies skewed towards the low buckets, as real ones are
+        Random random = new Random(1);
+        int[] indices = new int[OPERATIONS];
+        for (int i = 0; i < OPERATIONS; ++i)
+            indices[i] = 1 + (int) (BUCKETS * Math.pow(random.nextDouble(), 3));
+
+        // warm up once, then measure
+        runAll(indices, maxThreads, false);
+        System.out.printf("%-8s %14s %14s %14s%n", "threads", "locked ms", "1 stripe ms", "striped ms");
+        for (int threads = 1; threads <= maxThreads; threads *= 2)
+            runAll(indices, threads, true);
+    }
+
+    private static void runAll(int[] indices, int threads, boolean print) throws InterruptedException {
+        int stripes = Math.max(1, Runtime.getRuntime().availableProcessors());
+        double locked = run(new LockedFenwickTree(), indices, threads);
+        double single = run(new Concurrent(1), indices, threads);
+        double striped = run(new Concurrent(stripes), indices, threads);
+        if (print)
+            System.out.printf("%-8d %14.1f %14.1f %14.1f%n", threads, locked, single, striped);
+    }
+
+    /** Returns the time taken in milliseconds */
+    private static double run(Histogram histogram, int[] indices, int threads) throws InterruptedException {
+        Thread[] workers = new Thread[threads];
+        int chunk = (indices.length + threads - 1) / threads;
+
+        long begin = System.nanoTime();
+        for (int t = 0; t < threads; ++t) {
+            int from = t * chunk, to = Math.min(indices.length, from + chunk);
+            workers[t] = new Thread(() -> {
+                long seen = 0;
+                for (int i = from; i < to; ++i) {
+                    histogram.add(indices[i], 1);
+                    if (i % QUERY_EVERY == 0)
+                        seen += histogram.prefixSum(BUCKETS / 2);
+                }
+                if (seen < 0)
+                    throw new AssertionError();
+            });
+            workers[t].start();
+        }
+        for (Thread worker : workers)
+            worker.join();
+        double millis = (System.nanoTime() - begin) / 1e6;
+
+        if (histogram.prefixSum(BUCKETS) != indices.length)
+            throw new AssertionError("Lost updates");
+        return millis;
+    }
+}
@@ -0,0 +1,119 @@
+package com.josh;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Union find that many threads can unify and query at the same time without
+ * locks.
+ *
+ * Parents are kept in an {@link AtomicIntegerArray}. unify links one root
+ * under the other with a compare and set on the root's parent, retrying if
+ * another thread linked that root first. Roots are ordered by a fixed random
+ * priority (a bijective hash of the index), and the lower one is linked under
+ * the higher one. That keeps trees shallow in expectation the way union by
+ * rank would, with nothing to update but the parent. find does path
+ * splitting: every node on the path is pointed at its grandparent with a
+ * compare and set. A failed compare and set just means another thread already
+ * shortened the path.
+ *
+ * All operations are lock-free. Component sizes are not tracked, because a
+ * size cannot be moved to the new root atomically with the link.
+ */
+public class ConcurrentUnionFind {
+    /** parents.get(i) == i when i is a root */
+    private final AtomicIntegerArray parents;
+
+    /** Total number of nodes in Union find/Disjoint set */
+    private final int size;
+
+    /** Total number of components in union set */
+    private final AtomicInteger numGroups;
+
+    public ConcurrentUnionFind(int size) {
+        if (size <= 0)
+            throw new IllegalArgumentException("The size of the union should be at least 1");
+
+        this.size = size;
+        numGroups = new AtomicInteger(size);
+        parents = new AtomicIntegerArray(size);
+        for (int i = 0; i < size; ++i)
+            parents.set(i, i);
+    }
+
+    /** Fixed pseudo random order of the nodes, distinct for every node */
+    private static int priority(int node) {
+        int h = node * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * Find which component/group/set 'node' belongs to. While other threads are
+     * unifying, the root returned may already have been linked under another
+     */
+    public int find(int node) {
+        while (true) {
+            int parent = parents.get(node);
+            if (parent == node)
+                return node;
+
+            // path splitting: point node at its grandparent and move up
+            int grandparent = parents.get(parent);
+            if (grandparent != parent)
+                parents.compareAndSet(node, parent, grandparent);
+            node = parent;
+        }
+    }
+
+    /** Check whether node and node2 belong to the same set/group/component */
+    public boolean connected(int node, int node2) {
+        while (true) {
+            node = find(node);
+            node2 = find(node2);
+            if (node == node2)
+                return true;
+            // both were roots at some point after the other was found, so
+            // they were in different components then
+            if (parents.get(node) == node)
+                return false;
+        }
+    }
+
+    /**
+     * Make node and node2 belong to the same component. Returns true if they
+     * were in different components, ie this call joined them
+     */
+    public boolean unify(int node, int node2) {
+        while (true) {
+            node = find(node);
+            node2 = find(node2);
+            if (node == node2)
+                return false;
+
+            // link the root with the lower priority under the other
+            if (priority(node) > priority(node2)) {
+                int tmp = node;
+                node = node2;
+                node2 = tmp;
+            }
+            if (parents.compareAndSet(node, node, node2)) {
+                numGroups.decrementAndGet();
+                return true;
+            }
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /** Fetch total number of components in the union set */
+    public int componentNum() {
+        return numGroups.get();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("parents=%s\ngroup number=%d\n", parents, numGroups.get());
+    }
+}
@@ -0,0 +1,53 @@
+package com.josh;
+
+import java.util.Random;
+
+/**
+ * Unifies a stream of random edges with a {@link ConcurrentUnionFind}, split
+ * between an increasing number of threads, and prints the time taken. Every
+ * run must end with the same number of components.
+ */
+public class ConcurrentUnionFindBenchmark {
+    private static final int NODES = 1 << 22;
+    private static final int EDGES = 1 << 23;
+
+    public static void main(String[] args) throws InterruptedException {
+        int maxThreads = args.length > 0 ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+
+        Random random = new Random(1);
+        int[] from = new int[EDGES], to = new int[EDGES];
+        for (int i = 0; i < EDGES; ++i) {
+            from[i] = random.nextInt(NODES);
+            to[i] = random.nextInt(NODES);
+        }
+
+        // warm up once, then measure
+        run(from, to, maxThreads);
+        System.out.printf("%-8s %12s %14s %12s%n", "threads", "ms", "unions/ms", "components");
+        for (int threads = 1; threads <= maxThreads; threads *= 2) {
+            long begin = System.nanoTime();
+            int components = run(from, to, threads);
+            double millis = (System.nanoTime() - begin) / 1e6;
+            System.out.printf("%-8d %12.1f %14.0f %12d%n", threads, millis, EDGES / millis, components);
+        }
+    }
+
+    /** Returns the number of components left */
+    private static int run(int[] from, int[] to, int threads) throws InterruptedException {
+        ConcurrentUnionFind unionFind = new ConcurrentUnionFind(NODES);
+        Thread[] workers = new Thread[threads];
+        int chunk = (EDGES + threads - 1) / threads;
+
+        for (int t = 0; t < threads; ++t) {
+            int begin = t * chunk, end = Math.min(EDGES, begin + chunk);
+            workers[t] = new Thread(() -> {
+                for (int i = begin; i < end; ++i)
+                    unionFind.unify(from[i], to[i]);
+            });
+            workers[t].start();
+        }
+        for (Thread worker : workers)
+            worker.join();
+        return unionFind.componentNum();
+    }
+}
@@ -0,0 +1,255 @@
+package com.josh;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import com.josh.hashtable.LongLongMap;
+
+/**
+ * Offline dynamic connectivity: answers "are u and v connected?" queries
+ * mixed into a sequence of edge insertions and deletions.
+ *
+ * Record the events in order with addEdge, removeEdge and query, then call
+ * solve. Each edge is alive over a range of queries. A segment tree over the
+ * queries splits that range into O(log q) nodes, and the edge is stored at
+ * each of them. A depth first walk of the tree unifies a node's edges on the
+ * way down and rolls them back on the way up, using a
+ * {@link RollbackUnionFind}. At a leaf, exactly the edges alive at that query
+ * have been unified. The whole run is O((e log q + q) log n).
+ *
+ * Adding an edge that is already there adds a parallel copy. The edge stays
+ * until every copy is removed.
+ */
+public class DynamicConnectivity {
+    private final int nodes;
+
+    // queries in the order they were made
+    private int[] queryNodes = new int[16], queryNodes2 = new int[16];
+    private int queryCount = 0;
+
+    /** Open edge index of each edge currently in the graph, keyed by its nodes */
+    private final LongLongMap openEdges = new LongLongMap(16, 0.45, -1);
+    private int[] openStart = new int[16], openCopies = new int[16];
+    private int openCount = 0;
+    /** Open edge indices that can be reused */
+    private int[] freeOpen = new int[16];
+    private int freeOpenCount = 0;
+
+    // edges that have been removed, with the range of queries they were alive
+    // for, [start, end)
+    private int[] edgeNodes = new int[16], edgeNodes2 = new int[16], edgeStart = new int[16], edgeEnd = new int[16];
+    private int edgeCount = 0;
+
+    public DynamicConnectivity(int nodes) {
+        if (nodes <= 0)
+            throw new IllegalArgumentException("The number of nodes should be at least 1");
+        this.nodes = nodes;
+    }
+
+    private static long edgeKey(int node, int node2) {
+        int low = Math.min(node, node2), high = Math.max(node, node2);
+        return ((long) low << 32) | high;
+    }
+
+    private void checkNode(int node) {
+        if (node < 0 || node >= nodes)
+            throw new IllegalArgumentException("Invalid node: " + node);
+    }
+
+    public void addEdge(int node, int node2) {
+        checkNode(node);
+        checkNode(node2);
+
+        long key = edgeKey(node, node2);
+        long index = openEdges.get(key);
+        if (index != -1) {
+            ++openCopies[(int) index];
+            return;
+        }
+
+        int open;
+        if (freeOpenCount > 0)
+            open = freeOpen[--freeOpenCount];
+        else {
+            if (openCount == openStart.length) {
+                openStart = Arrays.copyOf(openStart, openCount * 2);
+                openCopies = Arrays.copyOf(openCopies, openCount * 2);
+            }
+            open = openCount++;
+        }
+        openStart[open] = queryCount;
+        openCopies[open] = 1;
+        openEdges.put(key, open);
+    }
+
+    public void removeEdge(int node, int node2) {
+        checkNode(node);
+        checkNode(node2);
+
+        long key = edgeKey(node, node2);
+        long index = openEdges.get(key);
+        if (index == -1)
+            throw new IllegalArgumentException("No edge between " + node + " and " + node2);
+
+        int open = (int) index;
+        if (--openCopies[open] > 0)
+            return;
+
+        openEdges.remove(key);
+        if (freeOpenCount == freeOpen.length)
+            freeOpen = Arrays.copyOf(freeOpen, freeOpenCount * 2);
+        freeOpen[freeOpenCount++] = open;
+        if (openStart[open] < queryCount)
+            addEdgeRange(node, node2, openStart[open], queryCount);
+    }
+
+    private void addEdgeRange(int node, int node2, int start, int end) {
+        if (edgeCount == edgeNodes.length) {
+            int capacity = edgeCount * 2;
+            edgeNodes = Arrays.copyOf(edgeNodes, capacity);
+            edgeNodes2 = Arrays.copyOf(edgeNodes2, capacity);
+            edgeStart = Arrays.copyOf(edgeStart, capacity);
+            edgeEnd = Arrays.copyOf(edgeEnd, capacity);
+        }
+        edgeNodes[edgeCount] = node;
+        edgeNodes2[edgeCount] = node2;
+        edgeStart[edgeCount] = start;
+        edgeEnd[edgeCount++] = end;
+    }
+
+    /** Asks whether the nodes are connected at this point. Returns the query's index */
+    public int query(int node, int node2) {
+        checkNode(node);
+        checkNode(node2);
+
+        if (queryCount == queryNodes.length) {
+            queryNodes = Arrays.copyOf(queryNodes, queryCount * 2);
+            queryNodes2 = Arrays.copyOf(queryNodes2, queryCount * 2);
+        }
+        queryNodes[queryCount] = node;
+        queryNodes2[queryCount] = node2;
+        return queryCount++;
+    }
+
+    /**
+     * Answers every query made so far, indexed by the query's index. Edges
+     * still in the graph count as alive until the last query
+     */
+    public boolean[] solve() {
+        boolean[] answers = new boolean[queryCount];
+        if (queryCount == 0)
+            return answers;
+
+        // per segment tree node, a linked list of the edges stored there
+        int treeSize = 1;
+        while (treeSize < queryCount)
+            treeSize <<= 1;
+        int[] heads = new int[2 * treeSize];
+        Arrays.fill(heads, -1);
+        Segments segments = new Segments(edgeCount * 4 + 16);
+
+        for (int i = 0; i < edgeCount; ++i)
+            segments.insert(heads, edgeStart[i], edgeEnd[i], treeSize, i);
+
+        // edges never removed, found through the open edge table
+        int stillOpen = edgeCount;
+        for (long key : openEdges.keys()) {
+            int open = (int) openEdges.get(key);
+            if (openStart[open] < queryCount)
+                addEdgeRange((int) (key >>> 32), (int) key, openStart[open], queryCount);
+        }
+        for (int i = stillOpen; i < edgeCount; ++i)
+            segments.insert(heads, edgeStart[i], edgeEnd[i], treeSize, i);
+        edgeCount = stillOpen;
+
+        RollbackUnionFind unionFind = new RollbackUnionFind(nodes);
+        walk(1, 0, treeSize, heads, segments, unionFind, answers);
+        return answers;
+    }
+
+    /** Edge lists of the segment tree nodes, in flat arrays */
+    private static class Segments {
+        int[] edge, next;
+        int count = 0;
+
+        Segments(int capacity) {
+            edge = new int[capacity];
+            next = new int[capacity];
+        }
+
+        /** Stores edge at the nodes that exactly cover [start, end) */
+        void insert(int[] heads, int start, int end, int treeSize, int edgeIndex) {
+            // bottom up: walk the two boundaries towards the root
+            for (int low = start + treeSize, high = end + treeSize; low < high; low >>= 1, high >>= 1) {
+                if ((low & 1) == 1)
+                    add(heads, low++, edgeIndex);
+                if ((high & 1) == 1)
+                    add(heads, --high, edgeIndex);
+            }
+        }
+
+        private void add(int[] heads, int node, int edgeIndex) {
+            if (count == edge.length) {
+                edge = Arrays.copyOf(edge, count * 2);
+                next = Arrays.copyOf(next, count * 2);
+            }
+            edge[count] = edgeIndex;
+            next[count] = heads[node];
+            heads[node] = count++;
+        }
+    }
+
+    private void walk(int node, int low, int high, int[] heads, Segments segments, RollbackUnionFind unionFind,
+            boolean[] answers) {
+        if (low >= queryCount)
+            return;
+
+        int snapshot = unionFind.snapshot();
+        for (int i = heads[node]; i != -1; i = segments.next[i]) {
+            int edge = segments.edge[i];
+            unionFind.unify(edgeNodes[edge], edgeNodes2[edge]);
+        }
+
+        if (high - low == 1)
+            answers[low] = unionFind.connected(queryNodes[low], queryNodes2[low]);
+        else {
+            int middle = (low + high) >>> 1;
+            walk(2 * node, low, middle, heads, segments, unionFind, answers);
+            walk(2 * node + 1, middle, high, heads, segments, unionFind, answers);
+        }
+        unionFind.rollback(snapshot);
+    }
+
+    /**
+     * Runs a sliding window of random edges over a large graph: every step adds
+     * an edge, removes the one added a window ago and makes a query
+     */
+    public static void main(String[] args) {
+        int nodes = 1 << 19, window = 1 << 19, steps = args.length > 0 ? Integer.parseInt(args[0]) : 2_000_000;
+        Random random = new Random(1);
+        DynamicConnectivity connectivity = new DynamicConnectivity(nodes);
+        int[] added = new int[2 * window];
+
+        long begin = System.nanoTime();
+        for (int step = 0; step < steps; ++step) {
+            int slot = step % window;
+            if (step >= window)
+                connectivity.removeEdge(added[2 * slot], added[2 * slot + 1]);
+            added[2 * slot] = random.nextInt(nodes);
+            added[2 * slot + 1] = random.nextInt(nodes);
+            connectivity.addEdge(added[2 * slot], added[2 * slot + 1]);
+            connectivity.query(random.nextInt(nodes), random.nextInt(nodes));
+        }
+        long recorded = System.nanoTime();
+        boolean[] answers = connectivity.solve();
+        long solved = System.nanoTime();
+
+        int connected = 0;
+        for (boolean answer : answers) {
+            if (answer)
+                ++connected;
+        }
+        System.out.printf("%d events recorded in %.0fms, solved in %.0fms, %d of %d queries connected%n", 3L * steps,
+                (recorded - begin) / 1e6, (solved - recorded) / 1e6, connected, answers.length);
+    }
+}
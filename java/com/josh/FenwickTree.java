@@ -1,11 +1,16 @@
 package com.josh;
 
+import java.util.Arrays;
+
 /**
  * A data structure that supports sum range queries as well as setting values in
  * a static array and getting the value of the prefix sum up to some index
  * efficiently
  */
 public class FenwickTree {
+    /** Batches of at least this many queries are answered in sorted order */
+    private static final int SORTED_BATCH = 64;
+
     /** Contains the range sums */
     private long[] tree;
 
@@ -13,16 +18,25 @@ public class FenwickTree {
         tree = new long[size + 1];
     }
 
+    /**
+     * Builds the tree from one based values in a single linear pass.
+     * values[0] is not used, so values.length - 1 values are loaded. Each cell
+     * pushes its finished sum into its parent, which is always further right,
+     * so every cell is complete by the time it is reached.
+     */
     public FenwickTree(long[] values) {
         if (values == null)
             throw new IllegalArgumentException("Values array cannot be null");
 
         tree = values.clone();
+        if (tree.length == 0)
+            tree = new long[1];
+        tree[0] = 0;
 
-        for (int i = 0; i < values.length; ++i) {
+        for (int i = 1; i < tree.length; ++i) {
             int j = i + lsb(i);
 
-            if (j < values.length)
+            if (j < tree.length)
                 tree[j] += tree[i];
         }
     }
@@ -59,14 +73,102 @@ public class FenwickTree {
         }
     }
 
+    /**
+     * Smallest index whose prefix sum is at least prefixSum, or size() + 1 if
+     * there is none. Only meaningful when no value is negative, so that prefix
+     * sums never decrease. Descends by binary lifting in O(log n): each step
+     * tries to extend the current index by the next lower power of two, which
+     * covers exactly one tree cell.
+     */
+    public int lowerBound(long prefixSum) {
+        int n = tree.length - 1, index = 0;
+        for (int step = Integer.highestOneBit(Math.max(n, 1)); step > 0; step >>= 1) {
+            int next = index + step;
+            if (next <= n && tree[next] < prefixSum) {
+                index = next;
+                prefixSum -= tree[next];
+            }
+        }
+        return index + 1;
+    }
+
+    /** Number of values, the largest valid index */
+    public int size() {
+        return tree.length - 1;
+    }
+
+    /**
+     * The value at index. (one based) tree[index] holds the sum of
+     * (index - lsb(index), index], so the cells below index that sum to the
+     * part of that range before index are subtracted. This is one walk, about
+     * half as long as the two prefix sums of sum(index, index)
+     */
+    public long get(int index) {
+        if (index <= 0 || index >= tree.length)
+            throw new IllegalArgumentException("Index out of bounds: " + index);
+
+        long value = tree[index];
+        int stop = index - lsb(index);
+        for (int i = index - 1; i > stop; i &= ~lsb(i))
+            value -= tree[i];
+        return value;
+    }
+
     /** Set the value at index to k */
-    public void set(int index, int k) {
-        long value = sum(index, index);
-        add(index, k - value);
+    public void set(int index, long k) {
+        add(index, k - get(index));
+    }
+
+    /**
+     * Prefix sums up to each of the indices in queries. Small batches walk the
+     * tree once per query. Larger ones are answered in index order: each sum is
+     * the previous one plus the range between the two indices, found by walking
+     * both down until they meet. Close indices meet after a step or two, and
+     * the tree is read front to back instead of at random. Uses O(number of
+     * queries) extra space for the sort, never O(size())
+     */
+    public long[] prefixSums(int[] queries) {
+        int n = tree.length - 1;
+        for (int query : queries) {
+            if (query < 0 || query > n)
+                throw new IllegalArgumentException("Index out of bounds: " + query);
+        }
+
+        long[] sums = new long[queries.length];
+        if (queries.length < SORTED_BATCH) {
+            for (int q = 0; q < queries.length; ++q)
+                sums[q] = prefixSum(queries[q]);
+            return sums;
+        }
+
+        // index in the high half, position in queries in the low half
+        long[] order = new long[queries.length];
+        for (int q = 0; q < queries.length; ++q)
+            order[q] = (long) queries[q] << 32 | q;
+        Arrays.sort(order);
+
+        long sum = 0;
+        int previous = 0;
+        for (long entry : order) {
+            int query = (int) (entry >>> 32);
+            // prefixSum(query) - prefixSum(previous)
+            for (int i = query, j = previous; i != j;) {
+                if (i > j) {
+                    sum += tree[i];
+                    i &= ~lsb(i);
+                } else {
+                    sum -= tree[j];
+                    j &= ~lsb(j);
+                }
+            }
+            previous = query;
+            sums[(int) entry] = sum;
+        }
+        return sums;
     }
 
     @Override
     public String toString() {
-        return java.util.Arrays.toString(tree);
+        return Arrays.toString(tree);
     }
 }
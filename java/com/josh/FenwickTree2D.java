@@ -0,0 +1,84 @@
+package com.josh;
+
+/**
+ * A Fenwick tree over a grid: adds to a single cell and sums any rectangle in
+ * O(log rows * log cols). Rows and columns are one based, as in
+ * {@link FenwickTree}.
+ *
+ * The tree is a Fenwick tree of rows whose cells are Fenwick trees of columns,
+ * stored row by row in a single array.
+ */
+public class FenwickTree2D {
+    private final long[] tree;
+    private final int rows, cols;
+
+    public FenwickTree2D(int rows, int cols) {
+        if (rows < 0 || cols < 0)
+            throw new IllegalArgumentException("Invalid dimensions: " + rows + "x" + cols);
+        if ((rows + 1L) * (cols + 1L) > Integer.MAX_VALUE - 8)
+            throw new IllegalArgumentException("Too many cells: " + rows + "x" + cols);
+
+        this.rows = rows;
+        this.cols = cols;
+        tree = new long[(rows + 1) * (cols + 1)];
+    }
+
+    /** Fetches value of the least significant bit */
+    private int lsb(int i) {
+        return i & -i;
+    }
+
+    private void checkCell(int row, int col) {
+        // a column past the end would silently land in the next row
+        if (row < 0 || row > rows || col < 0 || col > cols)
+            throw new IllegalArgumentException("Cell out of bounds: (" + row + ", " + col + ")");
+    }
+
+    /** Add a value to a certain cell. (one based) */
+    public void add(int row, int col, long toAdd) {
+        checkCell(row, col);
+        if (row == 0 || col == 0)
+            throw new IllegalArgumentException("Cell out of bounds: (" + row + ", " + col + ")");
+
+        for (int i = row; i <= rows; i += lsb(i)) {
+            int base = i * (cols + 1);
+            for (int j = col; j <= cols; j += lsb(j))
+                tree[base + j] += toAdd;
+        }
+    }
+
+    /** Sum of the rectangle from (1, 1) to (row, col) */
+    public long prefixSum(int row, int col) {
+        checkCell(row, col);
+
+        long sum = 0;
+        for (int i = row; i > 0; i &= ~lsb(i)) {
+            int base = i * (cols + 1);
+            for (int j = col; j > 0; j &= ~lsb(j))
+                sum += tree[base + j];
+        }
+        return sum;
+    }
+
+    /** Sum of the rectangle from (row, col) to (row2, col2) inclusive */
+    public long sum(int row, int col, int row2, int col2) {
+        if (row > row2 || col > col2)
+            throw new IllegalArgumentException("Ensure row2 >= row and col2 >= col");
+
+        return prefixSum(row2, col2) - prefixSum(row - 1, col2) - prefixSum(row2, col - 1)
+                + prefixSum(row - 1, col - 1);
+    }
+
+    /** Set the value at a cell to k */
+    public void set(int row, int col, long k) {
+        add(row, col, k - sum(row, col, row, col));
+    }
+
+    public int rows() {
+        return rows;
+    }
+
+    public int cols() {
+        return cols;
+    }
+}
@@ -0,0 +1,179 @@
+package com.josh;
+
+import java.util.Arrays;
+
+import com.josh.hashtable.LongLongMap;
+
+/**
+ * Union find over arbitrary long ids that are not known up front, eg entity
+ * ids arriving in a stream of match pairs.
+ *
+ * Every id gets a dense int index the first time it is seen, through a
+ * {@link LongLongMap}. The parent and size arrays are indexed by it and grow
+ * by half as more ids arrive. An id that was never unified with anything is
+ * its own single node component, without taking any space.
+ *
+ * find uses path halving (every other node on the path is pointed at its
+ * grandparent in a single pass) and unify links the smaller component under
+ * the larger one.
+ */
+public class KeyedUnionFind {
+    private static final int DEFAULT_CAPACITY = 16;
+
+    /** Index of each id seen so far */
+    private final LongLongMap indices;
+
+    /** Id of each index */
+    private long[] ids;
+
+    /** Contains parents of nodes. If parents[i]=i, then i is a root node */
+    private int[] parents;
+
+    /** Sizes of the components, only meaningful at roots */
+    private int[] groupSizes;
+
+    /** Number of ids seen so far */
+    private int size = 0;
+
+    /** Number of merges done. Components = ids seen - merges */
+    private int merges = 0;
+
+    public KeyedUnionFind() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /** capacity is only the number of ids to make room for at first */
+    public KeyedUnionFind(int capacity) {
+        if (capacity < 0)
+            throw new IllegalArgumentException("Invalid capacity: " + capacity);
+        capacity = Math.max(capacity, DEFAULT_CAPACITY);
+        indices = new LongLongMap(capacity, 0.45, -1);
+        ids = new long[capacity];
+        parents = new int[capacity];
+        groupSizes = new int[capacity];
+    }
+
+    /** Index of id, giving it the next free one if it is new */
+    private int intern(long id) {
+        long index = indices.putIfAbsent(id, size);
+        if (index != -1)
+            return (int) index;
+
+        if (size == parents.length)
+            grow();
+        ids[size] = id;
+        parents[size] = size;
+        groupSizes[size] = 1;
+        return size++;
+    }
+
+    private void grow() {
+        if (size == Integer.MAX_VALUE)
+            throw new IllegalStateException("Too many ids");
+        int capacity = (int) Math.min(Integer.MAX_VALUE, size + (size >> 1) + 1L);
+        ids = Arrays.copyOf(ids, capacity);
+        parents = Arrays.copyOf(parents, capacity);
+        groupSizes = Arrays.copyOf(groupSizes, capacity);
+    }
+
+    /** Root index of the node at index, halving the path on the way */
+    private int root(int node) {
+        while (parents[node] != node) {
+            parents[node] = parents[parents[node]];
+            node = parents[node];
+        }
+        return node;
+    }
+
+    /**
+     * Id of the representative of id's component. An id never seen before is
+     * its own representative
+     */
+    public long find(long id) {
+        long index = indices.get(id);
+        return index == -1 ? id : ids[root((int) index)];
+    }
+
+    /** Check whether id and id2 belong to the same set/group/component */
+    public boolean connected(long id, long id2) {
+        if (id == id2)
+            return true;
+        long index = indices.get(id), index2 = indices.get(id2);
+        if (index == -1 || index2 == -1)
+            return false;
+        return root((int) index) == root((int) index2);
+    }
+
+    /** Fetch the size of the component that id belongs to */
+    public int componentSize(long id) {
+        long index = indices.get(id);
+        return index == -1 ? 1 : groupSizes[root((int) index)];
+    }
+
+    /** Number of distinct ids seen so far */
+    public int size() {
+        return size;
+    }
+
+    /** Number of components among the ids seen so far */
+    public int componentNum() {
+        return size - merges;
+    }
+
+    /**
+     * Make id and id2 belong to the same component, adding either of them if it
+     * is new. Returns true if they were in different components
+     */
+    public boolean unify(long id, long id2) {
+        return unifyIndices(intern(id), intern(id2));
+    }
+
+    private boolean unifyIndices(int node, int node2) {
+        int root = root(node), root2 = root(node2);
+        if (root == root2)
+            return false;
+
+        if (groupSizes[root] < groupSizes[root2]) {
+            int tmp = root;
+            root = root2;
+            root2 = tmp;
+        }
+        parents[root2] = root;
+        groupSizes[root] += groupSizes[root2];
+        ++merges;
+        return true;
+    }
+
+    /**
+     * Unifies ids[i] with ids2[i] for every i. All the ids are looked up or
+     * added first, then the unions run on the int indices alone, without going
+     * back to the map. Returns the number of pairs that joined two components
+     */
+    public int unifyAll(long[] ids, long[] ids2) {
+        if (ids.length != ids2.length)
+            throw new IllegalArgumentException("Arrays of different lengths");
+
+        int[] nodes = new int[ids.length], nodes2 = new int[ids2.length];
+        for (int i = 0; i < ids.length; ++i) {
+            nodes[i] = intern(ids[i]);
+            nodes2[i] = intern(ids2[i]);
+        }
+
+        int joined = 0;
+        for (int i = 0; i < nodes.length; ++i) {
+            if (unifyIndices(nodes[i], nodes2[i]))
+                ++joined;
+        }
+        return joined;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("{");
+        for (int i = 0; i < size; ++i)
+            sb.append(ids[i] + " => " + ids[root(i)] + ",");
+        sb.append("}");
+        return sb.toString();
+    }
+}
@@ -0,0 +1,79 @@
+package com.josh;
+
+/**
+ * A Fenwick tree that adds a value to a whole range of indices and sums a
+ * range, both in O(log n). Indices are one based, as in {@link FenwickTree}.
+ *
+ * Adding x to [i, j] changes prefixSum(k) by x * (k - i + 1) for k inside the
+ * range, and by x * (j - i + 1) after it. That is linear in k, so two trees are
+ * kept: one of the slopes (x at i, -x at j + 1) and one of the offsets. Then
+ * prefixSum(k) = slopes(k) * k - offsets(k). The two are interleaved in a
+ * single array so each step of a walk reads one cache line instead of two.
+ */
+public class RangeFenwickTree {
+    /** slopes at tree[2 * i], offsets at tree[2 * i + 1] */
+    private final long[] tree;
+    private final int size;
+
+    public RangeFenwickTree(int size) {
+        if (size < 0)
+            throw new IllegalArgumentException("Invalid size: " + size);
+        this.size = size;
+        tree = new long[2 * (size + 1)];
+    }
+
+    /** Fetches value of the least significant bit */
+    private int lsb(int i) {
+        return i & -i;
+    }
+
+    private void update(int index, long slope, long offset) {
+        while (index <= size) {
+            tree[2 * index] += slope;
+            tree[2 * index + 1] += offset;
+            index += lsb(index);
+        }
+    }
+
+    /** Add toAdd to every value from index i to j inclusive. (one based) */
+    public void add(int i, int j, long toAdd) {
+        if (i > j)
+            throw new IllegalArgumentException("Ensure j >= i");
+        if (i < 1 || j > size)
+            throw new IllegalArgumentException("Range out of bounds: [" + i + ", " + j + "]");
+
+        update(i, toAdd, toAdd * (i - 1));
+        update(j + 1, -toAdd, -toAdd * j);
+    }
+
+    /** Add a value to a certain index. (one based) */
+    public void add(int index, long toAdd) {
+        add(index, index, toAdd);
+    }
+
+    public long prefixSum(int i) {
+        long slopes = 0, offsets = 0;
+        for (int k = i; k > 0; k &= ~lsb(k)) {
+            slopes += tree[2 * k];
+            offsets += tree[2 * k + 1];
+        }
+        return slopes * i - offsets;
+    }
+
+    /** Find the sum of a range */
+    public long sum(int i, int j) {
+        if (i > j)
+            throw new IllegalArgumentException("Ensure j >= i");
+
+        return prefixSum(j) - prefixSum(i - 1);
+    }
+
+    /** The value at index. (one based) */
+    public long get(int index) {
+        return sum(index, index);
+    }
+
+    public int size() {
+        return size;
+    }
+}
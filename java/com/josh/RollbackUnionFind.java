@@ -0,0 +1,111 @@
+package com.josh;
+
+import java.util.Arrays;
+
+/**
+ * Union find whose unions can be undone, newest first.
+ *
+ * Uses the same packed layout as {@link UnionFind}: parents[i] is i's parent,
+ * or the negated size of i's component if i is a root. There is no path
+ * compression, since it would rewrite parents that an undo cannot restore.
+ * Union by size alone keeps find at O(log n). Each union that joins two
+ * components records the root it linked. {@link #rollback} undoes unions back
+ * to a {@link #snapshot} in O(1) each.
+ */
+public class RollbackUnionFind {
+    private final int[] parents;
+
+    /** Total number of components in union set */
+    private int numGroups;
+
+    /** Roots linked under another root, and their negated sizes before that */
+    private int[] history = new int[16];
+    private int historySize = 0;
+
+    public RollbackUnionFind(int size) {
+        if (size <= 0)
+            throw new IllegalArgumentException("The size of the union should be at least 1");
+
+        numGroups = size;
+        parents = new int[size];
+        Arrays.fill(parents, -1);
+    }
+
+    /** Find which component/group/set 'node' belongs to */
+    public int find(int node) {
+        while (parents[node] >= 0)
+            node = parents[node];
+        return node;
+    }
+
+    /** Check whether node and node2 belong to the same set/group/component */
+    public boolean connected(int node, int node2) {
+        return find(node) == find(node2);
+    }
+
+    /** Fetch the size of the component that node belongs to */
+    public int componentSize(int node) {
+        return -parents[find(node)];
+    }
+
+    public int size() {
+        return parents.length;
+    }
+
+    /** Fetch total number of components in the union set */
+    public int componentNum() {
+        return numGroups;
+    }
+
+    /**
+     * Make node and node2 belong to the same component. Returns true if they
+     * were in different components
+     */
+    public boolean unify(int node, int node2) {
+        int root = find(node), root2 = find(node2);
+        if (root == root2)
+            return false;
+
+        // sizes are negated, so the larger component has the smaller value
+        if (parents[root] > parents[root2]) {
+            int tmp = root;
+            root = root2;
+            root2 = tmp;
+        }
+
+        if (historySize == history.length)
+            history = Arrays.copyOf(history, historySize * 2);
+        history[historySize++] = root2;
+        history[historySize++] = parents[root2];
+
+        parents[root] += parents[root2];
+        parents[root2] = root;
+        --numGroups;
+        return true;
+    }
+
+    /** A point to roll back to. Only unions made after it can be undone */
+    public int snapshot() {
+        return historySize;
+    }
+
+    /** Undoes every union made since the snapshot was taken */
+    public void rollback(int snapshot) {
+        // every union takes two history slots, so snapshots are always even
+        if (snapshot < 0 || snapshot > historySize || (snapshot & 1) != 0)
+            throw new IllegalArgumentException("Invalid snapshot: " + snapshot);
+
+        while (historySize > snapshot) {
+            int oldValue = history[--historySize], child = history[--historySize];
+            int root = parents[child];
+            parents[root] -= oldValue;
+            parents[child] = oldValue;
+            ++numGroups;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.format("parents=%s\ngroup number=%d\n", Arrays.toString(parents), numGroups);
+    }
+}
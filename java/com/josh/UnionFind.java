@@ -14,13 +14,13 @@ import java.util.Arrays;
  */
 public class UnionFind {
     /**
-     * Contains parents of nodes. If parents[i]=i, then i is a root node
+     * Parents and component sizes packed into one array. If parents[i] >= 0 it
+     * is i's parent. Otherwise i is a root node and -parents[i] is the size of
+     * its component. Keeping both in one array means find and unify only ever
+     * touch one array
      */
     private int[] parents;
 
-    /** Contains sizes of the group/component/set that each component belongs to */
-    private int[] groupSizes;
-
     /** Total number of nodes in Union find/Disjoint set */
     private int size;
 
@@ -47,34 +47,29 @@ public class UnionFind {
             throw new IllegalArgumentException("The size of the union should be at least 1");
 
         this.size = numGroups = size;
-        groupSizes = new int[size];
         parents = new int[size];
 
-        // fill the nodes and parents
-        for (int i = 0; i < size; ++i) {
-            parents[i] = i; // each item is its own root node at first
-            groupSizes[i] = 1; // no other nodes are attached to a node at first
-        }
+        // each item is its own root node of a component of size 1 at first
+        Arrays.fill(parents, -1);
     }
 
-    /** Find which component/group/set 'node' belongs to */
+    /**
+     * Find which component/group/set 'node' belongs to.
+     *
+     * Uses path halving: on the way up, every other node is pointed at its
+     * grandparent. That does the job of path compression in the same single
+     * pass that looks for the root
+     */
     public int find(int node) {
-        int root = parents[node];
-
-        // recursively look for the root node for the node
-        while (parents[root] != root)
-            root = parents[root];
-
-        // compress the path leading to the root
-        // move up the tree and repeatedly set the root node for each of the
-        // nodes encountered till the final root node is reached
-        int previousChild = node;
-        while (previousChild != root) {
-            int tmp = previousChild;
-            previousChild = parents[previousChild];
-            parents[tmp] = root;
+        int parent;
+        while ((parent = parents[node]) >= 0) {
+            int grandparent = parents[parent];
+            if (grandparent < 0)
+                return parent;
+            parents[node] = grandparent;
+            node = grandparent;
         }
-        return root;
+        return node;
     }
 
     /** Check whether node and node2 belong to the same set/group/component */
@@ -84,7 +79,7 @@ public class UnionFind {
 
     /** Fetch the size of the component that node belongs to */
     public int componentSize(int node) {
-        return groupSizes[find(node)];
+        return -parents[find(node)];
     }
 
     public int size() {
@@ -98,62 +93,37 @@ public class UnionFind {
 
     /** Make node and node2 belong to the same component */
     public void unify(int node, int node2) {
-        int nodeComponent = find(node);
-        int node2Component = find(node2);
+        int root = find(node);
+        int root2 = find(node2);
 
-        if (nodeComponent == node2Component)
+        if (root == root2)
             return;
 
-        // find smaller component and add it to bigger component
-        // to save on linear time
-        int smallerComponent = componentSize(nodeComponent) < componentSize(node2Component) ? nodeComponent
-                : node2Component;
-        int largerComponent = componentSize(nodeComponent) >= componentSize(node2Component) ? nodeComponent
-                : node2Component;
-
-        // move all nodes in smaller component to larger component
-        for (int i = 0; i < parents.length; ++i) {
-            if (parents[i] == smallerComponent) {
-                int nodeInComponent = i; // the node whose component is being changed
-                parents[nodeInComponent] = largerComponent;
-                // increment number of nodes in larger component since one extra item has
-                // been
-                // added to it and decrement smaller component because one of its nodes has
-                // been
-                // added to the larger component
-                ++groupSizes[largerComponent];
-                --groupSizes[smallerComponent];
-            }
+        // attach the smaller component under the root of the larger one, so
+        // trees stay O(log n) deep. Sizes are stored negated, so the larger
+        // component has the smaller value
+        if (parents[root] > parents[root2]) {
+            int tmp = root;
+            root = root2;
+            root2 = tmp;
         }
+        parents[root] += parents[root2];
+        parents[root2] = root;
         --numGroups;
     }
 
-    // public void unify(int p, int q) {
-    // int root1 = find(p);
-    // int root2 = find(q);
-
-    // if (root1 == root2)
-    // return;
-
-    // if (componentSize(root1) < componentSize(root2)) {
-    // parents[root1] = root2;
-    // groupSizes[root2] += groupSizes[root1];
-    // } else {
-    // parents[root2] = root1;
-    // groupSizes[root1] += groupSizes[root2];
-    // }
-
-    // --numGroups;
-    // }
-
     @Override
     public String toString() {
-        String parentsString = Arrays.toString(parents);
-        String groupsString = Arrays.toString(groupSizes);
+        int[] parentsView = new int[size], groupSizes = new int[size];
+        for (int i = 0; i < size; ++i) {
+            parentsView[i] = parents[i] < 0 ? i : parents[i];
+            groupSizes[i] = parents[i] < 0 ? -parents[i] : 0;
+        }
+        String parentsString = Arrays.toString(parentsView);
         String groupSizesString = Arrays.toString(groupSizes);
         String groupNumberString = Integer.toString(numGroups);
-        String finalString = String.format("parents=%s\ngroups=%s\ngroup sizes=%s\ngroup number=%s\n", parentsString,
-                groupsString, groupSizesString, groupNumberString);
+        String finalString = String.format("parents=%s\ngroup sizes=%s\ngroup number=%s\n", parentsString,
+                groupSizesString, groupNumberString);
         return finalString;
     }
 }
@@ -0,0 +1,114 @@
+package com.josh;
+
+import java.util.Random;
+
+/**
+ * Compares {@link UnionFind} against the layout it replaced: separate parent
+ * and size arrays, a find that walks to the root and then walks the path a
+ * second time to compress it, and a unify that looks sizes up again through
+ * find. Runs random unions followed by random connected queries on a universe
+ * far bigger than the CPU caches, where the cost is mostly cache misses.
+ */
+public class UnionFindBenchmark {
+    private static final int NODES = 1 << 23;
+    private static final int UNIONS = NODES;
+    private static final int QUERIES = NODES;
+
+    /** The previous UnionFind layout, with union by size in place of its O(n) unify */
+    private static class TwoArrayUnionFind {
+        private final int[] parents, groupSizes;
+
+        TwoArrayUnionFind(int size) {
+            parents = new int[size];
+            groupSizes = new int[size];
+            for (int i = 0; i < size; ++i) {
+                parents[i] = i;
+                groupSizes[i] = 1;
+            }
+        }
+
+        int find(int node) {
+            int root = node;
+            while (parents[root] != root)
+                root = parents[root];
+            while (node != root) {
+                int next = parents[node];
+                parents[node] = root;
+                node = next;
+            }
+            return root;
+        }
+
+        int componentSize(int node) {
+            return groupSizes[find(node)];
+        }
+
+        void unify(int node, int node2) {
+            int root = find(node), root2 = find(node2);
+            if (root == root2)
+                return;
+            if (componentSize(root) < componentSize(root2)) {
+                parents[root] = root2;
+                groupSizes[root2] += groupSizes[root];
+            } else {
+                parents[root2] = root;
+                groupSizes[root] += groupSizes[root2];
+            }
+        }
+    }
+
+    public static void main(String[] args) {
+        Random random = new Random(1);
+        int[] a = new int[UNIONS + QUERIES], b = new int[UNIONS + QUERIES];
+        for (int i = 0; i < a.length; ++i) {
+            a[i] = random.nextInt(NODES);
+            b[i] = random.nextInt(NODES);
+        }
+
+        // warm up once, then measure
+        runPacked(a, b, false);
+        runTwoArray(a, b, false);
+        System.out.printf("%-10s %10s %10s %14s%n", "", "unify ms", "query ms", "bytes/node");
+        runPacked(a, b, true);
+        runTwoArray(a, b, true);
+    }
+
+    private static void runPacked(int[] a, int[] b, boolean print) {
+        UnionFind unionFind = new UnionFind(NODES);
+        long begin = System.nanoTime();
+        for (int i = 0; i < UNIONS; ++i)
+            unionFind.unify(a[i], b[i]);
+        long unified = System.nanoTime();
+        int connected = 0;
+        for (int i = UNIONS; i < a.length; ++i) {
+            if (unionFind.connected(a[i], b[i]))
+                ++connected;
+        }
+        long end = System.nanoTime();
+
+        if (print)
+            report("packed", unified - begin, end - unified, 4, connected);
+    }
+
+    private static void runTwoArray(int[] a, int[] b, boolean print) {
+        TwoArrayUnionFind unionFind = new TwoArrayUnionFind(NODES);
+        long begin = System.nanoTime();
+        for (int i = 0; i < UNIONS; ++i)
+            unionFind.unify(a[i], b[i]);
+        long unified = System.nanoTime();
+        int connected = 0;
+        for (int i = UNIONS; i < a.length; ++i) {
+            if (unionFind.find(a[i]) == unionFind.find(b[i]))
+                ++connected;
+        }
+        long end = System.nanoTime();
+
+        if (print)
+            report("two array", unified - begin, end - unified, 8, connected);
+    }
+
+    private static void report(String name, long unifyNanos, long queryNanos, int bytesPerNode, int connected) {
+        System.out.printf("%-10s %10.1f %10.1f %14d   (connected %d)%n", name, unifyNanos / 1e6, queryNanos / 1e6,
+                bytesPerNode, connected);
+    }
+}
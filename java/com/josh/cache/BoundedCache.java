@@ -0,0 +1,350 @@
+package com.josh.cache;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.ToIntBiFunction;
+
+import com.josh.hashtable.HashTableSeparateChaining;
+
+/**
+ * A cache holding at most a maximum total weight of entries. By default every
+ * entry weighs 1, so the maximum is a number of entries.
+ *
+ * A {@link HashTableSeparateChaining} maps keys to nodes, and each node is
+ * also linked into an intrusive doubly linked list in access order. A hit
+ * moves its node to the back of its list, and eviction takes from the front,
+ * all in O(1).
+ *
+ * With {@link Policy#LRU} there is a single list and the least recently used
+ * entry is evicted. With {@link Policy#W_TINY_LFU} new entries go into a small
+ * LRU window (1% of the maximum). Entries pushed out of the window have to win
+ * a place in the main space against its eviction victim. The one seen more
+ * often, according to a {@link FrequencySketch}, stays. The main space is a
+ * segmented LRU. Entries start in probation and move to protected (80% of the
+ * main space) when they are hit again. This keeps popular keys through scans
+ * and bursts of one-off keys that would flush a plain LRU.
+ *
+ * Not thread safe.
+ */
+public class BoundedCache<K, V> {
+    public enum Policy {
+        LRU, W_TINY_LFU
+    }
+
+    private static final int WINDOW = 0, PROBATION = 1, PROTECTED = 2;
+
+    private static class Node<K, V> {
+        K key;
+        V value;
+        int weight;
+        /** Which list the node is in */
+        int queue;
+        Node<K, V> previous, next;
+
+        Node(K key, V value, int weight) {
+            this.key = key;
+            this.value = value;
+            this.weight = weight;
+        }
+    }
+
+    /** Intrusive doubly linked list of nodes from least to most recently used */
+    private static class AccessOrder<K, V> {
+        /** Both ends of the list, so linking never has to check for null */
+        final Node<K, V> sentinel = new Node<>(null, null, 0);
+        /** Total weight of the nodes in the list */
+        long weight = 0;
+
+        AccessOrder() {
+            sentinel.previous = sentinel.next = sentinel;
+        }
+
+        boolean isEmpty() {
+            return sentinel.next == sentinel;
+        }
+
+        Node<K, V> first() {
+            return isEmpty() ? null : sentinel.next;
+        }
+
+        Node<K, V> last() {
+            return isEmpty() ? null : sentinel.previous;
+        }
+
+        void linkLast(Node<K, V> node) {
+            node.previous = sentinel.previous;
+            node.next = sentinel;
+            sentinel.previous.next = node;
+            sentinel.previous = node;
+            weight += node.weight;
+        }
+
+        void unlink(Node<K, V> node) {
+            node.previous.next = node.next;
+            node.next.previous = node.previous;
+            node.previous = node.next = null;
+            weight -= node.weight;
+        }
+
+        void moveToLast(Node<K, V> node) {
+            unlink(node);
+            linkLast(node);
+        }
+
+        void clear() {
+            sentinel.previous = sentinel.next = sentinel;
+            weight = 0;
+        }
+    }
+
+    private final Policy policy;
+    private final long maximum, windowMaximum, protectedMaximum;
+    private final ToIntBiFunction<? super K, ? super V> weigher;
+
+    private final HashTableSeparateChaining<K, Node<K, V>> index = new HashTableSeparateChaining<>();
+    /** The whole cache for LRU */
+    private final AccessOrder<K, V> window = new AccessOrder<>();
+    private final AccessOrder<K, V> probation = new AccessOrder<>();
+    private final AccessOrder<K, V> protectedQueue = new AccessOrder<>();
+    /** Only used by W_TINY_LFU */
+    private final FrequencySketch sketch;
+
+    private long weight = 0;
+    private long hitCount = 0, missCount = 0, evictionCount = 0, evictionWeight = 0;
+
+    /** A W-TinyLFU cache of at most maximumSize entries */
+    public BoundedCache(long maximumSize) {
+        this(maximumSize, Policy.W_TINY_LFU);
+    }
+
+    public BoundedCache(long maximumSize, Policy policy) {
+        this(maximumSize, policy, (key, value) -> 1);
+    }
+
+    /**
+     * A cache whose entries together weigh at most maximumWeight, weighing each
+     * entry with weigher when it is put
+     */
+    public BoundedCache(long maximumWeight, Policy policy, ToIntBiFunction<? super K, ? super V> weigher) {
+        if (maximumWeight <= 0)
+            throw new IllegalArgumentException("Invalid maximum weight: " + maximumWeight);
+        if (policy == null || weigher == null)
+            throw new IllegalArgumentException("Null policy or weigher");
+
+        this.policy = policy;
+        this.maximum = maximumWeight;
+        this.weigher = weigher;
+        if (policy == Policy.LRU) {
+            windowMaximum = maximumWeight;
+            protectedMaximum = 0;
+            sketch = null;
+        } else {
+            windowMaximum = Math.max(1, maximumWeight / 100);
+            protectedMaximum = (long) ((maximumWeight - windowMaximum) * 0.8);
+            sketch = new FrequencySketch(maximumWeight);
+        }
+    }
+
+    public Policy policy() {
+        return policy;
+    }
+
+    /** Maximum total weight of the entries */
+    public long maximum() {
+        return maximum;
+    }
+
+    /** Total weight of the entries */
+    public long weight() {
+        return weight;
+    }
+
+    public int size() {
+        return index.size();
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    private AccessOrder<K, V> queueOf(Node<K, V> node) {
+        return node.queue == WINDOW ? window : node.queue == PROBATION ? probation : protectedQueue;
+    }
+
+    /** Whether key is cached. Does not count as an access */
+    public boolean containsKey(K key) {
+        if (key == null)
+            throw new IllegalArgumentException("Null key");
+        return index.get(key) != null;
+    }
+
+    /** The value cached for key, or null. Counts as a hit or a miss */
+    public V get(K key) {
+        if (key == null)
+            throw new IllegalArgumentException("Null key");
+
+        Node<K, V> node = index.get(key);
+        if (sketch != null)
+            sketch.increment(key);
+        if (node == null) {
+            ++missCount;
+            return null;
+        }
+        ++hitCount;
+        onAccess(node);
+        return node.value;
+    }
+
+    /**
+     * Caches value under key, evicting entries if the cache goes over its
+     * maximum weight. Returns the previous value, or null. An entry that alone
+     * weighs more than the maximum is evicted straight away, along with any
+     * previous value under key, without touching the other entries
+     */
+    public V put(K key, V value) {
+        if (key == null)
+            throw new IllegalArgumentException("Null key");
+        if (value == null)
+            throw new IllegalArgumentException("Null value");
+        int entryWeight = weigher.applyAsInt(key, value);
+        if (entryWeight < 0)
+            throw new IllegalArgumentException("Negative weight: " + entryWeight);
+
+        if (sketch != null)
+            sketch.increment(key);
+
+        if (entryWeight > maximum) {
+            ++evictionCount;
+            evictionWeight += entryWeight;
+            return remove(key);
+        }
+
+        Node<K, V> node = index.get(key);
+        if (node != null) {
+            V oldValue = node.value;
+            node.value = value;
+            queueOf(node).weight += entryWeight - node.weight;
+            weight += entryWeight - node.weight;
+            node.weight = entryWeight;
+            onAccess(node);
+            evict();
+            return oldValue;
+        }
+
+        node = new Node<>(key, value, entryWeight);
+        index.put(key, node);
+        node.queue = WINDOW;
+        window.linkLast(node);
+        weight += entryWeight;
+        evict();
+        return null;
+    }
+
+    /** Removes key from the cache, returning its value or null */
+    public V remove(K key) {
+        if (key == null)
+            throw new IllegalArgumentException("Null key");
+
+        Node<K, V> node = index.remove(key);
+        if (node == null)
+            return null;
+        queueOf(node).unlink(node);
+        weight -= node.weight;
+        return node.value;
+    }
+
+    /** Empties the cache. The statistics are kept */
+    public void clear() {
+        index.clear();
+        window.clear();
+        probation.clear();
+        protectedQueue.clear();
+        if (sketch != null)
+            sketch.clear();
+        weight = 0;
+    }
+
+    /** Moves a hit node to the back of its list, promoting it out of probation */
+    private void onAccess(Node<K, V> node) {
+        if (node.queue != PROBATION) {
+            queueOf(node).moveToLast(node);
+            return;
+        }
+
+        probation.unlink(node);
+        node.queue = PROTECTED;
+        protectedQueue.linkLast(node);
+
+        // protected overflows back into probation
+        while (protectedQueue.weight > protectedMaximum && protectedQueue.first() != node) {
+            Node<K, V> demoted = protectedQueue.first();
+            protectedQueue.unlink(demoted);
+            demoted.queue = PROBATION;
+            probation.linkLast(demoted);
+        }
+    }
+
+    private void evict() {
+        if (policy == Policy.LRU) {
+            while (weight > maximum)
+                evict(window.first());
+            return;
+        }
+
+        // entries pushed out of the window become candidates at the back of
+        // probation
+        while (window.weight > windowMaximum && window.first() != window.last()) {
+            Node<K, V> candidate = window.first();
+            window.unlink(candidate);
+            candidate.queue = PROBATION;
+            probation.linkLast(candidate);
+        }
+
+        while (weight > maximum) {
+            Node<K, V> candidate = probation.last(), victim = probation.first();
+            if (victim == candidate)
+                victim = protectedQueue.first();
+
+            if (candidate == null)
+                evict(victim != null ? victim : window.first());
+            else if (victim == null)
+                evict(candidate);
+            else if (sketch.frequency(candidate.key) > sketch.frequency(victim.key))
+                evict(victim);
+            else
+                evict(candidate);
+        }
+    }
+
+    private void evict(Node<K, V> node) {
+        queueOf(node).unlink(node);
+        index.remove(node.key);
+        weight -= node.weight;
+        ++evictionCount;
+        evictionWeight += node.weight;
+    }
+
+    public CacheStats stats() {
+        return new CacheStats(hitCount, missCount, evictionCount, evictionWeight);
+    }
+
+    /** Keys from the next to be evicted to the most recently used, per list */
+    public List<K> keys() {
+        List<K> keys = new ArrayList<>(size());
+        for (AccessOrder<K, V> queue : List.of(window, probation, protectedQueue)) {
+            for (Node<K, V> node = queue.first(); node != null && node != queue.sentinel; node = node.next)
+                keys.add(node.key);
+        }
+        return keys;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("{");
+        for (K key : keys())
+            sb.append(key + " => " + index.get(key).value + ",");
+        sb.append("}");
+        return sb.toString();
+    }
+}
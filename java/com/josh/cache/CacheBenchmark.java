@@ -0,0 +1,71 @@
+package com.josh.cache;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Compares the hit rates of the LRU and W-TinyLFU policies of
+ * {@link BoundedCache}. Keys are drawn from a Zipf distribution (a few keys
+ * are very popular, most are rare). Every so often a scan of keys that are
+ * never seen again is mixed in, like a batch job reading through a table.
+ * Also prints the throughput of each policy.
+ */
+public class CacheBenchmark {
+    private static final int KEY_SPACE = 100_000;
+    private static final int CACHE_SIZE = 1_000;
+    private static final int REQUESTS = 5_000_000;
+    private static final double SKEW = 0.9;
+    /** One request in SCAN_EVERY starts a scan of SCAN_LENGTH one-off keys */
+    private static final int SCAN_EVERY = 50_000, SCAN_LENGTH = 5_000;
+
+    public static void main(String[] args) {
+        int cacheSize = args.length > 0 ? Integer.parseInt(args[0]) : CACHE_SIZE;
+        int[] requests = workload(new Random(1));
+
+        // warm up once, then measure
+        run(BoundedCache.Policy.LRU, cacheSize, requests, false);
+        run(BoundedCache.Policy.W_TINY_LFU, cacheSize, requests, false);
+        System.out.printf("%-12s %10s %12s %10s%n", "", "hit rate", "ops/ms", "evictions");
+        run(BoundedCache.Policy.LRU, cacheSize, requests, true);
+        run(BoundedCache.Policy.W_TINY_LFU, cacheSize, requests, true);
+    }
+
+    /** Zipf distributed keys, with scans of unique negative keys mixed in */
+    private static int[] workload(Random random) {
+        double[] cumulative = new double[KEY_SPACE];
+        double total = 0;
+        for (int rank = 0; rank < KEY_SPACE; ++rank)
+            cumulative[rank] = total += 1 / Math.pow(rank + 1, SKEW);
+
+        int[] requests = new int[REQUESTS];
+        int scanKey = 0;
+        for (int i = 0; i < REQUESTS; ++i) {
+            if (i % SCAN_EVERY == 0) {
+                for (int j = 0; j < SCAN_LENGTH && i < REQUESTS; ++j)
+                    requests[i++] = --scanKey;
+            }
+            if (i == REQUESTS)
+                break;
+            int rank = Arrays.binarySearch(cumulative, random.nextDouble() * total);
+            requests[i] = rank < 0 ? -rank - 1 : rank;
+        }
+        return requests;
+    }
+
+    private static void run(BoundedCache.Policy policy, int cacheSize, int[] requests, boolean print) {
+        BoundedCache<Integer, Integer> cache = new BoundedCache<>(cacheSize, policy);
+
+        long begin = System.nanoTime();
+        for (int key : requests) {
+            if (cache.get(key) == null)
+                cache.put(key, key);
+        }
+        long end = System.nanoTime();
+
+        if (print) {
+            CacheStats stats = cache.stats();
+            System.out.printf("%-12s %10.4f %12.0f %10d%n", policy, stats.hitRate(),
+                    requests.length / ((end - begin) / 1e6), stats.evictionCount());
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.josh.cache;
+
+/** A snapshot of a {@link BoundedCache}'s hit, miss and eviction counts */
+public class CacheStats {
+    private final long hitCount, missCount, evictionCount, evictionWeight;
+
+    public CacheStats(long hitCount, long missCount, long evictionCount, long evictionWeight) {
+        this.hitCount = hitCount;
+        this.missCount = missCount;
+        this.evictionCount = evictionCount;
+        this.evictionWeight = evictionWeight;
+    }
+
+    public long hitCount() {
+        return hitCount;
+    }
+
+    public long missCount() {
+        return missCount;
+    }
+
+    public long requestCount() {
+        return hitCount + missCount;
+    }
+
+    /** Fraction of gets that found their key, 1 if there were no gets */
+    public double hitRate() {
+        long requests = requestCount();
+        return requests == 0 ? 1 : (double) hitCount / requests;
+    }
+
+    public long evictionCount() {
+        return evictionCount;
+    }
+
+    /** Total weight of the evicted entries */
+    public long evictionWeight() {
+        return evictionWeight;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("hits=%d misses=%d hitRate=%.4f evictions=%d evictionWeight=%d", hitCount, missCount,
+                hitRate(), evictionCount, evictionWeight);
+    }
+}
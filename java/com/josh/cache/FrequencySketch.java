@@ -0,0 +1,94 @@
+package com.josh.cache;
+
+import java.util.Arrays;
+
+/**
+ * A count-min sketch of how often keys have been seen, used by
+ * {@link BoundedCache} to decide whether a new key is worth keeping over an old
+ * one.
+ *
+ * Counters are 4 bits, 16 to a long. A key has one counter in each of 4 rows,
+ * and its frequency is the smallest of them, so collisions can only make a key
+ * look more popular than it is. Once enough increments have been made, every
+ * counter is halved ("aging"). Old popularity fades and counters stay below
+ * their maximum of 15.
+ */
+public class FrequencySketch {
+    private static final long[] SEEDS = { 0xC3A5C85C97CB3127L, 0xB492B66FBE98F273L, 0x9AE16A3B2F90404FL,
+            0xCBF29CE484222325L };
+    /** Clears the bit each counter would shift into from its neighbour */
+    private static final long RESET_MASK = 0x7777777777777777L;
+    private static final int MAX_TABLE_SIZE = 1 << 24;
+
+    private final long[] table;
+    private final int tableMask;
+    /** Number of increments after which all counters are halved */
+    private final int sampleSize;
+    private int additions = 0;
+
+    /** Sized for a cache holding about expectedKeys keys */
+    public FrequencySketch(long expectedKeys) {
+        if (expectedKeys <= 0)
+            throw new IllegalArgumentException("Invalid expected keys: " + expectedKeys);
+        int size = (int) Math.min(MAX_TABLE_SIZE, Math.max(16, expectedKeys));
+        size = Integer.highestOneBit(size) == size ? size : Integer.highestOneBit(size) << 1;
+        table = new long[size];
+        tableMask = size - 1;
+        sampleSize = 10 * size;
+    }
+
+    private static int hash(Object key) {
+        int h = key.hashCode() * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    /** Index of the long holding the key's counter in the given row */
+    private int indexOf(int hash, int row) {
+        long h = (hash + SEEDS[row]) * SEEDS[row];
+        h += h >>> 32;
+        return (int) h & tableMask;
+    }
+
+    /** Bit offset of the key's counter in the given row, within its long */
+    private static int offsetOf(int hash, int row) {
+        // each row has its own 4 of the 16 counters in a long
+        return ((row << 2) + ((hash >>> (row << 3)) & 3)) << 2;
+    }
+
+    /** Estimated number of times key was seen, at most 15 */
+    public int frequency(Object key) {
+        int hash = hash(key), frequency = 15;
+        for (int row = 0; row < 4; ++row) {
+            int count = (int) ((table[indexOf(hash, row)] >>> offsetOf(hash, row)) & 0xF);
+            frequency = Math.min(frequency, count);
+        }
+        return frequency;
+    }
+
+    /** Counts one more sighting of key */
+    public void increment(Object key) {
+        int hash = hash(key);
+        boolean added = false;
+        for (int row = 0; row < 4; ++row) {
+            int index = indexOf(hash, row), offset = offsetOf(hash, row);
+            if (((table[index] >>> offset) & 0xF) != 0xF) {
+                table[index] += 1L << offset;
+                added = true;
+            }
+        }
+        if (added && ++additions == sampleSize)
+            reset();
+    }
+
+    /** Halves every counter */
+    private void reset() {
+        for (int i = 0; i < table.length; ++i)
+            table[i] = (table[i] >>> 1) & RESET_MASK;
+        additions >>>= 1;
+    }
+
+    public void clear() {
+        Arrays.fill(table, 0);
+        additions = 0;
+    }
+}
@@ -0,0 +1,86 @@
+package com.josh.hashtable;
+
+import java.util.Random;
+
+/**
+ * Compares looking up a batch of keys with a loop of
+ * {@link HashTableQuadraticProbing#get} calls against one
+ * {@link HashTableQuadraticProbing#getAll} call. The table is much bigger than
+ * the CPU caches, so almost every probe is a cache miss and the difference is
+ * how many of those misses overlap. Also times putAll against a loop of puts,
+ * both writing back the values already in the table.
+ */
+public class BatchLookupBenchmark {
+    private static final int KEYS = 4_000_000;
+    private static final int BATCH = 4096;
+    private static final int BATCHES = 2_000;
+
+    public static void main(String[] args) {
+        int keyCount = args.length > 0 ? Integer.parseInt(args[0]) : KEYS;
+
+        HashTableQuadraticProbing<Integer, Integer> table = new HashTableQuadraticProbing<>(keyCount);
+        Integer[] keys = new Integer[keyCount];
+        Random random = new Random(1);
+        for (int i = 0; i < keyCount; ++i)
+            table.put(keys[i] = random.nextInt(), i);
+
+        // every batch looks up random keys, a quarter of them missing
+        Integer[][] batches = new Integer[BATCHES][BATCH];
+        for (Integer[] batch : batches) {
+            for (int i = 0; i < BATCH; ++i)
+                batch[i] = random.nextInt(4) == 0 ? random.nextInt() : keys[random.nextInt(keyCount)];
+        }
+
+        // puts only write back the values of keys already in the table, so
+        // the table stays the same from run to run
+        Integer[][] updates = new Integer[BATCHES][BATCH], values = new Integer[BATCHES][BATCH];
+        for (int b = 0; b < BATCHES; ++b) {
+            for (int i = 0; i < BATCH; ++i)
+                values[b][i] = table.get(updates[b][i] = keys[random.nextInt(keyCount)]);
+        }
+
+        // warm up once, then measure
+        run(table, batches, updates, values, false);
+        System.out.printf("%-10s %12s%n", "", "keys/ms");
+        run(table, batches, updates, values, true);
+    }
+
+    private static void run(HashTableQuadraticProbing<Integer, Integer> table, Integer[][] batches,
+            Integer[][] updates, Integer[][] values, boolean print) {
+        Integer[] out = new Integer[BATCH];
+
+        long begin = System.nanoTime();
+        long found = 0;
+        for (Integer[] batch : batches) {
+            for (int i = 0; i < BATCH; ++i) {
+                if ((out[i] = table.get(batch[i])) != null)
+                    ++found;
+            }
+        }
+        long gets = System.nanoTime();
+        long foundAll = 0;
+        for (Integer[] batch : batches)
+            foundAll += table.getAll(batch, out);
+        long getAlls = System.nanoTime();
+
+        for (int b = 0; b < BATCHES; ++b) {
+            for (int i = 0; i < BATCH; ++i)
+                table.put(updates[b][i], values[b][i]);
+        }
+        long puts = System.nanoTime();
+        for (int b = 0; b < BATCHES; ++b)
+            table.putAll(updates[b], values[b]);
+        long putAlls = System.nanoTime();
+
+        if (print) {
+            report("get", gets - begin, found);
+            report("getAll", getAlls - gets, foundAll);
+            report("put", puts - getAlls, table.size());
+            report("putAll", putAlls - puts, table.size());
+        }
+    }
+
+    private static void report(String name, long nanos, long count) {
+        System.out.printf("%-10s %12.0f   (%d)%n", name, (double) BATCH * BATCHES / (nanos / 1e6), count);
+    }
+}
@@ -0,0 +1,82 @@
+package com.josh.hashtable;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * A bucket of {@link HashTableSeparateChaining}. Small buckets are plain
+ * lists ({@link ListBucket}). A bucket that grows past a threshold is turned
+ * into a balanced tree ({@link TreeBucket}).
+ *
+ * Either way, the bucket's entries are linked to each other through
+ * Entry.previous and Entry.next, so walking a bucket never allocates. Turning
+ * one kind of bucket into the other takes over the chain as it is.
+ */
+abstract class Bucket<K, V> implements Iterable<Entry<K, V>> {
+    Entry<K, V> head, tail;
+    int size = 0;
+
+    Bucket() {
+    }
+
+    /** Takes over the entries of another bucket */
+    Bucket(Bucket<K, V> other) {
+        head = other.head;
+        tail = other.tail;
+        size = other.size;
+    }
+
+    /** Finds the entry for key, or null */
+    abstract Entry<K, V> seek(K key, int hash);
+
+    /** Adds an entry whose key is not in the bucket yet */
+    void add(Entry<K, V> entry) {
+        entry.previous = tail;
+        entry.next = null;
+        if (tail == null)
+            head = entry;
+        else
+            tail.next = entry;
+        tail = entry;
+        ++size;
+    }
+
+    /** Removes an entry of this bucket */
+    void remove(Entry<K, V> entry) {
+        if (entry.previous == null)
+            head = entry.next;
+        else
+            entry.previous.next = entry.next;
+        if (entry.next == null)
+            tail = entry.previous;
+        else
+            entry.next.previous = entry.previous;
+        entry.previous = entry.next = null;
+        --size;
+    }
+
+    int size() {
+        return size;
+    }
+
+    @Override
+    public Iterator<Entry<K, V>> iterator() {
+        return new Iterator<Entry<K, V>>() {
+            Entry<K, V> next = head;
+
+            @Override
+            public boolean hasNext() {
+                return next != null;
+            }
+
+            @Override
+            public Entry<K, V> next() {
+                if (next == null)
+                    throw new NoSuchElementException();
+                Entry<K, V> entry = next;
+                next = entry.next;
+                return entry;
+            }
+        };
+    }
+}
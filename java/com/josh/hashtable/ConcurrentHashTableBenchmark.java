@@ -0,0 +1,89 @@
+package com.josh.hashtable;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Compares throughput of {@link ConcurrentHashTableSeparateChaining} against a
+ * {@link HashTableSeparateChaining} behind one synchronized wrapper, for an
+ * increasing number of threads. Each thread does 90% gets and 10% puts over a
+ * shared key range.
+ */
+public class ConcurrentHashTableBenchmark {
+    private static final int KEYS = 1 << 16;
+    private static final int OPERATIONS_PER_THREAD = 2_000_000;
+
+    interface Table {
+        Integer get(Integer key);
+
+        Integer put(Integer key, Integer value);
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        int maxThreads = args.length > 0 ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+        Integer[] keys = new Integer[KEYS];
+        for (int i = 0; i < KEYS; ++i)
+            keys[i] = i;
+
+        System.out.printf("%-8s %20s %20s%n", "threads", "synchronized ops/ms", "concurrent ops/ms");
+        for (int threads = 1; threads <= maxThreads; threads *= 2) {
+            HashTableSeparateChaining<Integer, Integer> chaining = new HashTableSeparateChaining<>();
+            Table locked = new Table() {
+                public synchronized Integer get(Integer key) {
+                    return chaining.get(key);
+                }
+
+                public synchronized Integer put(Integer key, Integer value) {
+                    return chaining.put(key, value);
+                }
+            };
+            ConcurrentHashTableSeparateChaining<Integer, Integer> concurrentTable = new ConcurrentHashTableSeparateChaining<>();
+            Table concurrent = new Table() {
+                public Integer get(Integer key) {
+                    return concurrentTable.get(key);
+                }
+
+                public Integer put(Integer key, Integer value) {
+                    return concurrentTable.put(key, value);
+                }
+            };
+
+            // warm up once, then measure
+            run(locked, keys, threads);
+            run(concurrent, keys, threads);
+            System.out.printf("%-8d %20.0f %20.0f%n", threads, run(locked, keys, threads),
+                    run(concurrent, keys, threads));
+        }
+    }
+
+    /** Returns the number of operations completed per millisecond */
+    private static double run(Table table, Integer[] keys, int threads) throws InterruptedException {
+        CountDownLatch start = new CountDownLatch(1);
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; ++t) {
+            workers[t] = new Thread(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < OPERATIONS_PER_THREAD; ++i) {
+                    Integer key = keys[random.nextInt(KEYS)];
+                    if (random.nextInt(10) == 0)
+                        table.put(key, key);
+                    else
+                        table.get(key);
+                }
+            });
+            workers[t].start();
+        }
+
+        long begin = System.nanoTime();
+        start.countDown();
+        for (Thread worker : workers)
+            worker.join();
+        double millis = (System.nanoTime() - begin) / 1e6;
+        return (double) threads * OPERATIONS_PER_THREAD / millis;
+    }
+}
@@ -0,0 +1,452 @@
+package com.josh.hashtable;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Thread safe variant of {@link HashTableSeparateChaining}.
+ *
+ * <ul>
+ * <li>get never locks. It reads the bucket head and walks the chain through
+ * volatile links</li>
+ * <li>An insert into an empty bucket is a single compare and set of the bucket
+ * head. Any other insert or remove locks only the head node of its bucket</li>
+ * <li>Resizes are shared. Once a resize starts, every thread that touches the
+ * table claims a range of buckets and copies them into the new table. A copied
+ * bucket's head is replaced with a forwarding node that points to the new
+ * table, so lookups and writes that reach it continue there</li>
+ * <li>Iterators are weakly consistent. They never throw
+ * ConcurrentModificationException. Each key present for the whole iteration is
+ * returned exactly once. Keys added or removed during the iteration may or may
+ * not be returned</li>
+ * </ul>
+ */
+@SuppressWarnings("unchecked")
+public class ConcurrentHashTableSeparateChaining<K, V> implements Iterable<K> {
+    private static final int DEFAULT_CAPACITY = 16;
+    private static final double DEFAULT_LOAD_FACTOR = 0.75;
+
+    /** Buckets claimed at a time by a thread helping with a resize */
+    private static final int TRANSFER_STRIDE = 16;
+
+    /** Hash of forwarding nodes. Spread key hashes can be anything else */
+    private static final int MOVED = -1;
+
+    static class Node<K, V> {
+        final int hash;
+        final K key;
+        volatile V value;
+        volatile Node<K, V> next;
+
+        Node(int hash, K key, V value, Node<K, V> next) {
+            this.hash = hash;
+            this.key = key;
+            this.value = value;
+            this.next = next;
+        }
+    }
+
+    /** Placed at the head of a bucket once it has been copied to nextTable */
+    static final class ForwardingNode<K, V> extends Node<K, V> {
+        final AtomicReferenceArray<Node<K, V>> nextTable;
+        final Resize<K, V> resize;
+
+        ForwardingNode(Resize<K, V> resize) {
+            super(MOVED, null, null, null);
+            this.nextTable = resize.next;
+            this.resize = resize;
+        }
+    }
+
+    /**
+     * The state of one resize. Claims and counts are kept per resize, so a
+     * thread that stalls and comes back during a later resize can only claim
+     * buckets of the resize it started helping with, which are all gone by then
+     */
+    static final class Resize<K, V> {
+        final AtomicReferenceArray<Node<K, V>> table, next;
+        final ForwardingNode<K, V> forward;
+
+        /** Buckets of the old table not yet claimed by a resizing thread */
+        final AtomicInteger transferIndex;
+
+        /** Buckets of the old table already copied */
+        final AtomicInteger transferred = new AtomicInteger();
+
+        Resize(AtomicReferenceArray<Node<K, V>> table) {
+            this.table = table;
+            next = new AtomicReferenceArray<>(table.length() * 2);
+            transferIndex = new AtomicInteger(table.length());
+            forward = new ForwardingNode<>(this);
+        }
+    }
+
+    private final double maxLoadFactor;
+
+    private volatile AtomicReferenceArray<Node<K, V>> table;
+
+    /** The resize in progress, null otherwise */
+    private volatile Resize<K, V> resizing;
+
+    /** Only taken to start a resize */
+    private final Object resizeLock = new Object();
+
+    private final LongAdder size = new LongAdder();
+
+    public ConcurrentHashTableSeparateChaining() {
+        this(DEFAULT_CAPACITY, DEFAULT_LOAD_FACTOR);
+    }
+
+    public ConcurrentHashTableSeparateChaining(int capacity) {
+        this(capacity, DEFAULT_LOAD_FACTOR);
+    }
+
+    public ConcurrentHashTableSeparateChaining(int capacity, double maxLoadFactor) {
+        if (capacity < 0)
+            throw new IllegalArgumentException("Illegal capacity");
+        if (maxLoadFactor <= 0 || Double.isInfinite(maxLoadFactor) || Double.isNaN(maxLoadFactor))
+            throw new IllegalArgumentException("Illegal maxLoadFactor");
+        this.maxLoadFactor = maxLoadFactor;
+        int power = Integer.highestOneBit(Math.max(capacity, DEFAULT_CAPACITY));
+        table = new AtomicReferenceArray<>(power == capacity ? power : power << 1);
+    }
+
+    /** Spread the hash and keep it clear of MOVED */
+    private static int hash(Object key) {
+        return Hashing.spread(key.hashCode()) & 0x7fffffff;
+    }
+
+    public int size() {
+        return (int) size.sum();
+    }
+
+    public boolean isEmpty() {
+        return size.sum() <= 0;
+    }
+
+    public boolean containsKey(K key) {
+        return hasKey(key);
+    }
+
+    public boolean hasKey(K key) {
+        return seekNode(key) != null;
+    }
+
+    public V get(K key) {
+        Node<K, V> node = seekNode(key);
+        return node == null ? null : node.value;
+    }
+
+    private Node<K, V> seekNode(K key) {
+        if (key == null)
+            return null;
+
+        int hash = hash(key);
+        AtomicReferenceArray<Node<K, V>> tab = table;
+        while (true) {
+            Node<K, V> node = tab.get(hash & (tab.length() - 1));
+            if (node == null)
+                return null;
+            if (node.hash == MOVED) {
+                tab = ((ForwardingNode<K, V>) node).nextTable;
+                continue;
+            }
+            for (; node != null; node = node.next) {
+                if (node.hash == hash && node.key.equals(key))
+                    return node;
+            }
+            return null;
+        }
+    }
+
+    public V put(K key, V value) {
+        return insert(key, value);
+    }
+
+    public V add(K key, V value) {
+        return insert(key, value);
+    }
+
+    public V insert(K key, V value) {
+        if (key == null)
+            throw new IllegalArgumentException("Null key not allowed");
+
+        int hash = hash(key);
+        AtomicReferenceArray<Node<K, V>> tab = table;
+        while (true) {
+            int i = hash & (tab.length() - 1);
+            Node<K, V> head = tab.get(i);
+
+            if (head == null) {
+                if (tab.compareAndSet(i, null, new Node<>(hash, key, value, null)))
+                    break;
+            } else if (head.hash == MOVED) {
+                tab = helpTransfer((ForwardingNode<K, V>) head);
+            } else {
+                synchronized (head) {
+                    // the head may have been removed or forwarded meanwhile
+                    if (tab.get(i) != head)
+                        continue;
+                    Node<K, V> node = head;
+                    while (true) {
+                        if (node.hash == hash && node.key.equals(key)) {
+                            V oldValue = node.value;
+                            node.value = value;
+                            return oldValue;
+                        }
+                        if (node.next == null) {
+                            node.next = new Node<>(hash, key, value, null);
+                            break;
+                        }
+                        node = node.next;
+                    }
+                }
+                break;
+            }
+        }
+
+        size.increment();
+        AtomicReferenceArray<Node<K, V>> current = table;
+        if (size.sum() > (long) (current.length() * maxLoadFactor))
+            resize(current);
+        return null;
+    }
+
+    public V remove(K key) {
+        if (key == null)
+            return null;
+
+        int hash = hash(key);
+        AtomicReferenceArray<Node<K, V>> tab = table;
+        while (true) {
+            int i = hash & (tab.length() - 1);
+            Node<K, V> head = tab.get(i);
+
+            if (head == null)
+                return null;
+            if (head.hash == MOVED) {
+                tab = helpTransfer((ForwardingNode<K, V>) head);
+                continue;
+            }
+            synchronized (head) {
+                if (tab.get(i) != head)
+                    continue;
+                for (Node<K, V> node = head, previous = null; node != null; previous = node, node = node.next) {
+                    if (node.hash == hash && node.key.equals(key)) {
+                        if (previous == null)
+                            tab.set(i, node.next);
+                        else
+                            previous.next = node.next;
+                        size.decrement();
+                        return node.value;
+                    }
+                }
+                return null;
+            }
+        }
+    }
+
+    /** Removes every key present when each bucket is visited */
+    public void clear() {
+        for (K key : this)
+            remove(key);
+    }
+
+    /** Start a resize of tab unless one is already running, then help with it */
+    private void resize(AtomicReferenceArray<Node<K, V>> tab) {
+        Resize<K, V> resize;
+        synchronized (resizeLock) {
+            if (table != tab || resizing != null)
+                return;
+            resize = new Resize<>(tab);
+            resizing = resize;
+        }
+        transfer(resize);
+    }
+
+    /**
+     * Help copy buckets of the resize forward belongs to. Returns the table
+     * the caller should continue in
+     */
+    private AtomicReferenceArray<Node<K, V>> helpTransfer(ForwardingNode<K, V> forward) {
+        transfer(forward.resize);
+        return forward.nextTable;
+    }
+
+    /** Claim ranges of buckets of a resize and copy them until none are left */
+    private void transfer(Resize<K, V> resize) {
+        AtomicReferenceArray<Node<K, V>> tab = resize.table, next = resize.next;
+        int n = tab.length();
+
+        while (true) {
+            int end = resize.transferIndex.get();
+            if (end <= 0)
+                return;
+            int start = Math.max(0, end - TRANSFER_STRIDE);
+            if (!resize.transferIndex.compareAndSet(end, start))
+                continue;
+
+            for (int i = start; i < end; ++i)
+                transferBucket(tab, next, i, resize.forward);
+
+            // whoever copies the last bucket publishes the new table
+            if (resize.transferred.addAndGet(end - start) == n) {
+                table = next;
+                resizing = null;
+            }
+        }
+    }
+
+    /**
+     * Copy bucket i into buckets i and i + n of the next table, then forward it.
+     * The old chain is left untouched so lookups already walking it still work
+     */
+    private void transferBucket(AtomicReferenceArray<Node<K, V>> tab, AtomicReferenceArray<Node<K, V>> next, int i,
+            ForwardingNode<K, V> forward) {
+        int n = tab.length();
+        while (true) {
+            Node<K, V> head = tab.get(i);
+            if (head == null) {
+                if (tab.compareAndSet(i, null, forward))
+                    return;
+                continue;
+            }
+            synchronized (head) {
+                if (tab.get(i) != head)
+                    continue;
+                Node<K, V> low = null, high = null;
+                for (Node<K, V> node = head; node != null; node = node.next) {
+                    if ((node.hash & n) == 0)
+                        low = new Node<>(node.hash, node.key, node.value, low);
+                    else
+                        high = new Node<>(node.hash, node.key, node.value, high);
+                }
+                next.set(i, low);
+                next.set(i + n, high);
+                tab.set(i, forward);
+                return;
+            }
+        }
+    }
+
+    public List<K> keys() {
+        List<K> keys = new ArrayList<>(size());
+        for (K key : this)
+            keys.add(key);
+        return keys;
+    }
+
+    public List<V> values() {
+        List<V> values = new ArrayList<>(size());
+        for (Iterator<Node<K, V>> it = new NodeIterator(); it.hasNext();)
+            values.add(it.next().value);
+        return values;
+    }
+
+    /** A range of buckets to visit: start, start + stride, ... up to end */
+    private static final class Frame<K, V> {
+        final AtomicReferenceArray<Node<K, V>> table;
+        final int end, stride;
+        int index;
+
+        Frame(AtomicReferenceArray<Node<K, V>> table, int start, int end, int stride) {
+            this.table = table;
+            this.index = start;
+            this.end = end;
+            this.stride = stride;
+        }
+    }
+
+    /**
+     * Walks every bucket of the table. A forwarded bucket is replaced by the two
+     * buckets of the next table that it was split into
+     */
+    private class NodeIterator implements Iterator<Node<K, V>> {
+        private final ArrayDeque<Frame<K, V>> frames = new ArrayDeque<>();
+        private Node<K, V> next;
+
+        NodeIterator() {
+            AtomicReferenceArray<Node<K, V>> tab = table;
+            frames.push(new Frame<>(tab, 0, tab.length(), 1));
+            next = advance(null);
+        }
+
+        private Node<K, V> advance(Node<K, V> node) {
+            node = node == null ? null : node.next;
+            while (node == null) {
+                Frame<K, V> frame = frames.peek();
+                if (frame == null)
+                    return null;
+                if (frame.index >= frame.end) {
+                    frames.pop();
+                    continue;
+                }
+
+                int i = frame.index;
+                frame.index += frame.stride;
+                Node<K, V> head = frame.table.get(i);
+                if (head != null && head.hash == MOVED) {
+                    int n = frame.table.length();
+                    frames.push(new Frame<>(((ForwardingNode<K, V>) head).nextTable, i, i + 2 * n, n));
+                    continue;
+                }
+                node = head;
+            }
+            return node;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public Node<K, V> next() {
+            if (next == null)
+                throw new NoSuchElementException();
+            Node<K, V> node = next;
+            next = advance(node);
+            return node;
+        }
+    }
+
+    @Override
+    public Iterator<K> iterator() {
+        NodeIterator nodes = new NodeIterator();
+
+        return new Iterator<K>() {
+            @Override
+            public boolean hasNext() {
+                return nodes.hasNext();
+            }
+
+            @Override
+            public K next() {
+                return nodes.next().key;
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("{");
+        for (Iterator<Node<K, V>> it = new NodeIterator(); it.hasNext();) {
+            Node<K, V> node = it.next();
+            sb.append(node.key + "=>" + node.value + ",");
+        }
+        sb.append("}");
+        return sb.toString();
+    }
+}
@@ -0,0 +1,26 @@
+package com.josh.hashtable;
+
+class Entry<K, V> {
+    K key;
+    V value;
+    int hash;
+    /** Neighbours in the bucket's chain */
+    Entry<K, V> previous, next;
+
+    public Entry(K key, V value) {
+        this.key = key;
+        this.value = value;
+        this.hash = Hashing.spread(key.hashCode());
+    }
+
+    public boolean equals(Entry<K, V> other) {
+        if (hash != other.hash)
+            return false;
+        return value == other.value;
+    }
+
+    @Override
+    public String toString() {
+        return key + "=>" + value;
+    }
+}
@@ -0,0 +1,19 @@
+package com.josh.hashtable;
+
+/**
+ * Walks the entries of a hash table in place. advance moves to the next entry
+ * and returns false once there are none left. key and value read the entry the
+ * cursor is on.
+ *
+ * <pre>
+ * for (EntryCursor&lt;K, V&gt; c = table.cursor(); c.advance();)
+ *     use(c.key(), c.value());
+ * </pre>
+ */
+public interface EntryCursor<K, V> {
+    boolean advance();
+
+    K key();
+
+    V value();
+}
@@ -0,0 +1,203 @@
+package com.josh.hashtable;
+
+/**
+ * A counting hash multiset using linear probing. Each key's count is an int in
+ * an array parallel to the key table, so counting never boxes.
+ *
+ * size is the number of distinct keys and totalCount the sum of their counts.
+ * union (largest count) copies the larger multiset's tables as they are and
+ * inserts only the buckets of the smaller one. intersection (smallest count)
+ * walks the buckets of the smaller multiset and probes the larger one.
+ */
+public class HashMultisetLinearProbing<E> extends LinearProbingKeys<E> {
+    private int[] counts;
+    private long totalCount = 0;
+
+    public HashMultisetLinearProbing() {
+        this(DEFAULT_CAPACITY, DEFAULT_LOAD_FACTOR);
+    }
+
+    public HashMultisetLinearProbing(int capacity) {
+        this(capacity, DEFAULT_LOAD_FACTOR);
+    }
+
+    public HashMultisetLinearProbing(int capacity, double loadFactor) {
+        super(capacity, loadFactor);
+        counts = new int[this.capacity];
+    }
+
+    @Override
+    void moved(int from, int to) {
+        counts[to] = counts[from];
+    }
+
+    @Override
+    void rehashed(int[] newIndices) {
+        int[] newCounts = new int[capacity];
+        for (int i = 0; i < newIndices.length; ++i) {
+            if (newIndices[i] != -1)
+                newCounts[newIndices[i]] = counts[i];
+        }
+        counts = newCounts;
+    }
+
+    /** Sum of the counts of all keys */
+    public long totalCount() {
+        return totalCount;
+    }
+
+    @Override
+    public void clear() {
+        super.clear();
+        totalCount = 0;
+    }
+
+    /** Number of times key was added, 0 if it is not in the multiset */
+    public int count(E key) {
+        int index = indexOf(key, hash(key));
+        return index == -1 ? 0 : counts[index];
+    }
+
+    public boolean contains(E key) {
+        return indexOf(key, hash(key)) != -1;
+    }
+
+    /** Adds one occurrence of key. Returns the new count */
+    public int add(E key) {
+        return add(key, 1) + 1;
+    }
+
+    /** Adds occurrences of key. Returns the previous count */
+    public int add(E key, int occurrences) {
+        if (occurrences < 0)
+            throw new IllegalArgumentException("Negative occurrences: " + occurrences);
+        return add(key, hash(key), occurrences);
+    }
+
+    private int add(E key, int hash, int occurrences) {
+        if (occurrences == 0)
+            return count(key);
+
+        int index = insert(key, hash);
+        if (index < 0) {
+            index = ~index;
+            counts[index] = 0;
+        }
+        int oldCount = counts[index];
+        counts[index] = Math.addExact(oldCount, occurrences);
+        totalCount += occurrences;
+        return oldCount;
+    }
+
+    /** Removes one occurrence of key. Returns the previous count */
+    public int remove(E key) {
+        return remove(key, 1);
+    }
+
+    /**
+     * Removes up to occurrences of key, dropping the key once its count reaches
+     * 0. Returns the previous count
+     */
+    public int remove(E key, int occurrences) {
+        if (occurrences < 0)
+            throw new IllegalArgumentException("Negative occurrences: " + occurrences);
+
+        int index = indexOf(key, hash(key));
+        if (index == -1)
+            return 0;
+        int oldCount = counts[index];
+        if (oldCount > occurrences) {
+            counts[index] -= occurrences;
+            totalCount -= occurrences;
+        } else {
+            totalCount -= oldCount;
+            removeAt(index);
+        }
+        return oldCount;
+    }
+
+    /** Sets the count of key, removing it for 0. Returns the previous count */
+    public int setCount(E key, int count) {
+        if (count < 0)
+            throw new IllegalArgumentException("Negative count: " + count);
+
+        int hash = hash(key);
+        int index = indexOf(key, hash);
+        int oldCount = index == -1 ? 0 : counts[index];
+        if (count == 0) {
+            if (index != -1) {
+                totalCount -= oldCount;
+                removeAt(index);
+            }
+            return oldCount;
+        }
+        if (index == -1)
+            index = ~insert(key, hash);
+        counts[index] = count;
+        totalCount += count - oldCount;
+        return oldCount;
+    }
+
+    /** Adds every occurrence of every key in other */
+    public void addAll(HashMultisetLinearProbing<? extends E> other) {
+        for (int i = 0; i < other.capacity; ++i) {
+            if (other.keyTable[i] != null)
+                add(other.keyTable[i], other.hashTable[i], other.counts[i]);
+        }
+    }
+
+    /** A new multiset where each key has the larger of its two counts */
+    public HashMultisetLinearProbing<E> union(HashMultisetLinearProbing<E> other) {
+        HashMultisetLinearProbing<E> larger = size() >= other.size() ? this : other;
+        HashMultisetLinearProbing<E> smaller = larger == this ? other : this;
+        HashMultisetLinearProbing<E> result = new HashMultisetLinearProbing<>(0, loadFactor);
+        result.copyKeysOf(larger);
+        result.counts = larger.counts.clone();
+        result.totalCount = larger.totalCount;
+        result.ensureCapacity(size() + other.size());
+
+        for (int i = 0; i < smaller.capacity; ++i) {
+            E key = smaller.keyTable[i];
+            if (key == null)
+                continue;
+            int index = result.insert(key, smaller.hashTable[i]);
+            int oldCount = index < 0 ? 0 : result.counts[index];
+            if (index < 0)
+                index = ~index;
+            int count = Math.max(oldCount, smaller.counts[i]);
+            result.counts[index] = count;
+            result.totalCount += count - oldCount;
+        }
+        return result;
+    }
+
+    /** A new multiset of the keys in both, each with the smaller of its counts */
+    public HashMultisetLinearProbing<E> intersection(HashMultisetLinearProbing<E> other) {
+        HashMultisetLinearProbing<E> smaller = size() <= other.size() ? this : other;
+        HashMultisetLinearProbing<E> larger = smaller == this ? other : this;
+        HashMultisetLinearProbing<E> result = new HashMultisetLinearProbing<>(smaller.size(), loadFactor);
+
+        for (int i = 0; i < smaller.capacity; ++i) {
+            E key = smaller.keyTable[i];
+            if (key == null)
+                continue;
+            int index = larger.indexOf(key, smaller.hashTable[i]);
+            if (index != -1)
+                result.add(key, smaller.hashTable[i], Math.min(smaller.counts[i], larger.counts[index]));
+        }
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("{");
+
+        for (int i = 0; i < capacity; ++i) {
+            if (keyTable[i] != null)
+                sb.append(keyTable[i] + " x " + counts[i] + ",");
+        }
+        sb.append("}");
+        return sb.toString();
+    }
+}
@@ -0,0 +1,103 @@
+package com.josh.hashtable;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A hash set using linear probing. Unlike a
+ * {@link HashTableQuadraticProbing} with dummy values, there is no value
+ * table, just the keys and their cached hashes.
+ *
+ * union copies the larger set's tables as they are and inserts only the
+ * buckets of the smaller one. intersection walks the buckets of the smaller
+ * set and probes the larger one. Both reuse the cached hashes instead of
+ * calling hashCode again.
+ */
+public class HashSetLinearProbing<E> extends LinearProbingKeys<E> {
+    public HashSetLinearProbing() {
+        this(DEFAULT_CAPACITY, DEFAULT_LOAD_FACTOR);
+    }
+
+    public HashSetLinearProbing(int capacity) {
+        this(capacity, DEFAULT_LOAD_FACTOR);
+    }
+
+    public HashSetLinearProbing(int capacity, double loadFactor) {
+        super(capacity, loadFactor);
+    }
+
+    /** Returns true if key was not in the set */
+    public boolean add(E key) {
+        return insert(key, hash(key)) < 0;
+    }
+
+    public boolean contains(E key) {
+        return indexOf(key, hash(key)) != -1;
+    }
+
+    /** Returns true if key was in the set */
+    public boolean remove(E key) {
+        int index = indexOf(key, hash(key));
+        if (index == -1)
+            return false;
+        removeAt(index);
+        return true;
+    }
+
+    /** Adds every key of other to this set. Returns the number of keys added */
+    public int addAll(HashSetLinearProbing<? extends E> other) {
+        int added = 0;
+        for (int i = 0; i < other.capacity; ++i) {
+            E key = other.keyTable[i];
+            if (key != null && insert(key, other.hashTable[i]) < 0)
+                ++added;
+        }
+        return added;
+    }
+
+    /** A new set with the keys in either set */
+    public HashSetLinearProbing<E> union(HashSetLinearProbing<E> other) {
+        HashSetLinearProbing<E> larger = size() >= other.size() ? this : other;
+        HashSetLinearProbing<E> result = new HashSetLinearProbing<>(0, loadFactor);
+        result.copyKeysOf(larger);
+        result.ensureCapacity(size() + other.size());
+        result.addAll(larger == this ? other : this);
+        return result;
+    }
+
+    /** A new set with the keys in both sets */
+    public HashSetLinearProbing<E> intersection(HashSetLinearProbing<E> other) {
+        HashSetLinearProbing<E> smaller = size() <= other.size() ? this : other;
+        HashSetLinearProbing<E> larger = smaller == this ? other : this;
+        HashSetLinearProbing<E> result = new HashSetLinearProbing<>(smaller.size(), loadFactor);
+
+        for (int i = 0; i < smaller.capacity; ++i) {
+            E key = smaller.keyTable[i];
+            if (key != null && larger.indexOf(key, smaller.hashTable[i]) != -1)
+                result.insert(key, smaller.hashTable[i]);
+        }
+        return result;
+    }
+
+    public List<E> keys() {
+        List<E> theKeys = new ArrayList<>(keyCount);
+        for (int i = 0; i < capacity; ++i) {
+            if (keyTable[i] != null)
+                theKeys.add(keyTable[i]);
+        }
+        return theKeys;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("{");
+
+        for (int i = 0; i < capacity; ++i) {
+            if (keyTable[i] != null)
+                sb.append(keyTable[i] + ",");
+        }
+        sb.append("}");
+        return sb.toString();
+    }
+}
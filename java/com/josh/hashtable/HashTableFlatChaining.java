@@ -0,0 +1,288 @@
+package com.josh.hashtable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Separate chaining hash table with no per-entry objects.
+ *
+ * Entries live in slots of parallel arrays (keys, values, hashes and next).
+ * A chain is a list of slot indices linked through next, starting from the
+ * bucket's entry in heads. Removed slots go on a free list and are reused by
+ * later inserts. Compared to {@link HashTableSeparateChaining}, which
+ * allocates an Entry and a list node per key, an entry here costs one slot in
+ * each array. Iteration walks the slot arrays front to back.
+ */
+@SuppressWarnings("unchecked")
+public class HashTableFlatChaining<K, V> implements Iterable<K> {
+    private static final int DEFAULT_CAPACITY = 8;
+    private static final double DEFAULT_LOAD_FACTOR = 0.75;
+
+    /** End of a chain, an empty bucket or an empty free list */
+    private static final int NIL = -1;
+
+    /** Maximum number of entries per bucket before the table grows */
+    private final double maxLoadFactor;
+    private int mask, modificationCount = 0;
+
+    /** Number of items stored in the hashtable */
+    private int size = 0;
+
+    /** First slot of each bucket's chain */
+    private int[] heads;
+
+    // One entry per slot. A free slot has a null key
+    private Object[] keys;
+    private Object[] values;
+    private int[] hashes;
+    private int[] next;
+
+    /** Slots below this index have been used at least once */
+    private int slotsUsed = 0;
+    /** Removed slots, linked through next */
+    private int freeList = NIL;
+
+    public HashTableFlatChaining() {
+        this(DEFAULT_CAPACITY, DEFAULT_LOAD_FACTOR);
+    }
+
+    public HashTableFlatChaining(int capacity) {
+        this(capacity, DEFAULT_LOAD_FACTOR);
+    }
+
+    public HashTableFlatChaining(int capacity, double maxLoadFactor) {
+        if (capacity < 0)
+            throw new IllegalArgumentException("Illegal capacity");
+        if (maxLoadFactor <= 0 || Double.isInfinite(maxLoadFactor) || Double.isNaN(maxLoadFactor))
+            throw new IllegalArgumentException("Illegal maxLoadFactor");
+
+        this.maxLoadFactor = maxLoadFactor;
+        int buckets = next2Power((int) Math.ceil(Math.max(capacity, DEFAULT_CAPACITY) / maxLoadFactor));
+        allocate(buckets, slotsFor(buckets));
+    }
+
+    /** Find the closest power of 2 at or above n */
+    private static int next2Power(int n) {
+        int power = Integer.highestOneBit(n);
+        return power == n ? n : power << 1;
+    }
+
+    private int slotsFor(int buckets) {
+        return Math.max(1, (int) (buckets * maxLoadFactor));
+    }
+
+    private void allocate(int buckets, int slots) {
+        mask = buckets - 1;
+        heads = new int[buckets];
+        Arrays.fill(heads, NIL);
+        keys = new Object[slots];
+        values = new Object[slots];
+        hashes = new int[slots];
+        next = new int[slots];
+        slotsUsed = 0;
+        freeList = NIL;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        Arrays.fill(heads, NIL);
+        Arrays.fill(keys, 0, slotsUsed, null);
+        Arrays.fill(values, 0, slotsUsed, null);
+        slotsUsed = size = 0;
+        freeList = NIL;
+        ++modificationCount;
+    }
+
+    /** Slot holding key, or NIL if it is not in the table */
+    private int indexOf(Object key, int hash) {
+        for (int slot = heads[hash & mask]; slot != NIL; slot = next[slot]) {
+            if (hashes[slot] == hash && keys[slot].equals(key))
+                return slot;
+        }
+        return NIL;
+    }
+
+    public boolean containsKey(K key) {
+        return hasKey(key);
+    }
+
+    public boolean hasKey(K key) {
+        if (key == null)
+            throw new IllegalArgumentException("Null key");
+        return indexOf(key, Hashing.spread(key.hashCode())) != NIL;
+    }
+
+    public V get(K key) {
+        if (key == null)
+            throw new IllegalArgumentException("Null key");
+        int slot = indexOf(key, Hashing.spread(key.hashCode()));
+        return slot == NIL ? null : (V) values[slot];
+    }
+
+    // insert, put and add pretty much do the same thing
+    public V put(K key, V value) {
+        return insert(key, value);
+    }
+
+    public V add(K key, V value) {
+        return insert(key, value);
+    }
+
+    /**
+     * Inserts a key, value pair into the hash table or updates value if key already
+     * exists
+     */
+    public V insert(K key, V value) {
+        if (key == null)
+            throw new IllegalArgumentException("Null key");
+
+        int hash = Hashing.spread(key.hashCode());
+        int slot = indexOf(key, hash);
+        if (slot != NIL) {
+            V oldValue = (V) values[slot];
+            values[slot] = value;
+            return oldValue;
+        }
+
+        if (freeList != NIL) {
+            slot = freeList;
+            freeList = next[slot];
+        } else {
+            if (slotsUsed == keys.length)
+                resizeTable();
+            slot = slotsUsed++;
+        }
+
+        keys[slot] = key;
+        values[slot] = value;
+        hashes[slot] = hash;
+        int bucket = hash & mask;
+        next[slot] = heads[bucket];
+        heads[bucket] = slot;
+
+        ++size;
+        ++modificationCount;
+        return null;
+    }
+
+    public V remove(K key) {
+        if (key == null)
+            throw new IllegalArgumentException("Null key");
+
+        int hash = Hashing.spread(key.hashCode()), bucket = hash & mask;
+        for (int slot = heads[bucket], previous = NIL; slot != NIL; previous = slot, slot = next[slot]) {
+            if (hashes[slot] != hash || !keys[slot].equals(key))
+                continue;
+
+            // unlink the slot from its chain and push it on the free list
+            if (previous == NIL)
+                heads[bucket] = next[slot];
+            else
+                next[previous] = next[slot];
+            next[slot] = freeList;
+            freeList = slot;
+
+            V oldValue = (V) values[slot];
+            keys[slot] = null;
+            values[slot] = null;
+            --size;
+            ++modificationCount;
+            return oldValue;
+        }
+        return null;
+    }
+
+    /**
+     * Doubles the number of buckets. Live entries are packed to the front of the
+     * new slot arrays, so the free list starts out empty
+     */
+    private void resizeTable() {
+        Object[] oldKeys = keys, oldValues = values;
+        int[] oldHashes = hashes;
+        int oldSlotsUsed = slotsUsed, buckets = heads.length * 2;
+        allocate(buckets, slotsFor(buckets));
+
+        for (int i = 0; i < oldSlotsUsed; ++i) {
+            if (oldKeys[i] == null)
+                continue;
+            int slot = slotsUsed++, hash = oldHashes[i], bucket = hash & mask;
+            keys[slot] = oldKeys[i];
+            values[slot] = oldValues[i];
+            hashes[slot] = hash;
+            next[slot] = heads[bucket];
+            heads[bucket] = slot;
+        }
+    }
+
+    public List<K> keys() {
+        List<K> theKeys = new ArrayList<>(size);
+        for (int i = 0; i < slotsUsed; ++i) {
+            if (keys[i] != null)
+                theKeys.add((K) keys[i]);
+        }
+        return theKeys;
+    }
+
+    public List<V> values() {
+        List<V> theValues = new ArrayList<>(size);
+        for (int i = 0; i < slotsUsed; ++i) {
+            if (keys[i] != null)
+                theValues.add((V) values[i]);
+        }
+        return theValues;
+    }
+
+    @Override
+    public Iterator<K> iterator() {
+        // for ensuring that the hash table is not modified while we are
+        // iterating it
+        final int MODIFICATION_COUNT = modificationCount;
+
+        return new Iterator<K>() {
+            int keysLeft = size, index = 0;
+
+            @Override
+            public boolean hasNext() {
+                if (MODIFICATION_COUNT != modificationCount)
+                    throw new ConcurrentModificationException();
+                return keysLeft != 0;
+            }
+
+            @Override
+            public K next() {
+                while (keys[index] == null)
+                    ++index;
+                --keysLeft;
+                return (K) keys[index++];
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("{");
+
+        for (int i = 0; i < slotsUsed; ++i) {
+            if (keys[i] != null)
+                sb.append(keys[i] + " => " + values[i] + ",");
+        }
+        sb.append("}");
+        return sb.toString();
+    }
+}
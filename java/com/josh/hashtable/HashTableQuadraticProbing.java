@@ -4,6 +4,8 @@ import java.util.ArrayList;
 import java.util.ConcurrentModificationException;
 import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.BiConsumer;
 
 @SuppressWarnings("unchecked")
 public class HashTableQuadraticProbing<K, V> implements Iterable<K> {
@@ -23,6 +25,30 @@ public class HashTableQuadraticProbing<K, V> implements Iterable<K> {
     private K[] keyTable;
     private V[] valueTable;
 
+    /**
+     * Spread hash of the key in each bucket, so resizes never call hashCode and
+     * probes only call equals when the hashes match
+     */
+    private int[] hashTable;
+
+    /**
+     * Whether resizes move entries over a few buckets at a time instead of all
+     * at once
+     */
+    private final boolean incrementalResize;
+
+    /**
+     * During an incremental resize, the previous table. Its entries are drained
+     * into the current table by later inserts, removes and lookups. null
+     * otherwise
+     */
+    private K[] oldKeyTable;
+    private V[] oldValueTable;
+    private int[] oldHashTable;
+
+    /** Next bucket of the old table to move over */
+    private int migrationIndex;
+
     /** Indicates whether an item was found in the hash table */
     private boolean containsFlag = false;
 
@@ -32,6 +58,18 @@ public class HashTableQuadraticProbing<K, V> implements Iterable<K> {
     private final static int DEFAULT_CAPACITY = 8;
     private final static double DEFAULT_LOAD_FACTOR = 0.45;
 
+    /** Old table buckets moved per insert or remove during an incremental resize */
+    private final static int MIGRATION_STEP = 16;
+
+    /**
+     * Old table buckets moved per lookup, so that a table which is only read
+     * after a resize starts still gets to drop the old table
+     */
+    private final static int READ_MIGRATION_STEP = 4;
+
+    /** Number of keys getAll and putAll probe side by side */
+    private final static int BATCH_SIZE = 16;
+
     public HashTableQuadraticProbing() {
         this(DEFAULT_CAPACITY, DEFAULT_LOAD_FACTOR);
     }
@@ -41,6 +79,16 @@ public class HashTableQuadraticProbing<K, V> implements Iterable<K> {
     }
 
     public HashTableQuadraticProbing(int capacity, double loadFactor) {
+        this(capacity, loadFactor, false);
+    }
+
+    /**
+     * With incrementalResize set, growing the table no longer rehashes every
+     * entry in one go. The old table is kept, lookups check both, and each
+     * insert or remove moves a few buckets over. That keeps the cost of any
+     * single put flat while the table grows
+     */
+    public HashTableQuadraticProbing(int capacity, double loadFactor, boolean incrementalResize) {
         if (capacity <= 0)
             throw new IllegalArgumentException("Invalid capacity: " + capacity);
         if (loadFactor <= 0 || Double.isNaN(loadFactor) || Double.isInfinite(loadFactor))
@@ -48,10 +96,12 @@ public class HashTableQuadraticProbing<K, V> implements Iterable<K> {
 
         this.capacity = Math.max(DEFAULT_CAPACITY, next2Power(capacity));
         this.loadFactor = loadFactor;
-        threshold = (int) loadFactor * capacity;
+        this.incrementalResize = incrementalResize;
+        threshold = (int) (loadFactor * this.capacity);
 
-        keyTable = (K[]) new Object[capacity];
-        valueTable = (V[]) new Object[capacity];
+        keyTable = (K[]) new Object[this.capacity];
+        valueTable = (V[]) new Object[this.capacity];
+        hashTable = new int[this.capacity];
     }
 
     /** Find the closest power of 2 above n */
@@ -65,9 +115,18 @@ public class HashTableQuadraticProbing<K, V> implements Iterable<K> {
         return (n * n + n) >> 1;
     }
 
-    /** Strip index negative sign and add it to the domain [0,capacity] */
+    /**
+     * Place a spread hash in the domain [0,capacity]. Capacity is always a power
+     * of 2, so a mask does the job of the modulo
+     */
     private int normalizeIndex(int keyHash) {
-        return (keyHash & 0x7fffffff) % capacity;
+        return keyHash & (capacity - 1);
+    }
+
+    /** Whether the bucket holds key, checking the cached hash before equals */
+    private boolean matches(int index, K key, int keyHash) {
+        K current = keyTable[index];
+        return current != null && current != TOMBSTONE && hashTable[index] == keyHash && current.equals(key);
     }
 
     /** Empties the hash table */
@@ -76,6 +135,9 @@ public class HashTableQuadraticProbing<K, V> implements Iterable<K> {
             valueTable[i] = null;
             keyTable[i] = null;
         }
+        oldKeyTable = null;
+        oldValueTable = null;
+        oldHashTable = null;
         keyCount = usedBuckets = 0;
         ++modificationCount;
     }
@@ -104,23 +166,43 @@ public class HashTableQuadraticProbing<K, V> implements Iterable<K> {
     public V insert(K key, V value) {
         if (key == null)
             throw new IllegalArgumentException("Null key");
+        return insert(key, value, Hashing.spread(key.hashCode()));
+    }
+
+    private V insert(K key, V value, final int keyHash) {
         if (usedBuckets >= threshold)
             resizeTable();
 
-        final int hash = normalizeIndex(key.hashCode());
+        // a key still in the old table moves to the current one with its new value
+        if (oldKeyTable != null) {
+            int oldIndex = oldIndexOf(key, keyHash);
+            if (oldIndex != -1) {
+                V oldValue = oldValueTable[oldIndex];
+                oldKeyTable[oldIndex] = TOMBSTONE;
+                oldValueTable[oldIndex] = null;
+                placeRehashed(key, value, keyHash);
+                ++modificationCount;
+                migrate();
+                return oldValue;
+            }
+            migrate();
+        }
+
+        final int hash = normalizeIndex(keyHash);
         int probeIndex = 0, currentIndex = hash, tombstoneIndex = -1;
         boolean probeCompleted = false;
 
         while (!probeCompleted) {
-            if (tombstoneIndex == -1 && keyTable[currentIndex].equals(TOMBSTONE))
+            if (tombstoneIndex == -1 && keyTable[currentIndex] == TOMBSTONE)
                 tombstoneIndex = currentIndex;
 
-            if (keyTable[currentIndex].equals(key)) {
+            if (matches(currentIndex, key, keyHash)) {
                 V oldValue = valueTable[currentIndex];
                 if (tombstoneIndex != -1) {
                     keyTable[tombstoneIndex] = key;
                     valueTable[tombstoneIndex] = value;
-                    keyTable[currentIndex] = null;
+                    hashTable[tombstoneIndex] = keyHash;
+                    keyTable[currentIndex] = TOMBSTONE;
                     valueTable[currentIndex] = null;
                 } else
                     valueTable[currentIndex] = value;
@@ -138,9 +220,11 @@ public class HashTableQuadraticProbing<K, V> implements Iterable<K> {
         if (tombstoneIndex != -1) {
             keyTable[tombstoneIndex] = key;
             valueTable[tombstoneIndex] = value;
+            hashTable[tombstoneIndex] = keyHash;
         } else {
             keyTable[currentIndex] = key;
             valueTable[currentIndex] = value;
+            hashTable[currentIndex] = keyHash;
             ++usedBuckets;
         }
 
@@ -162,46 +246,210 @@ public class HashTableQuadraticProbing<K, V> implements Iterable<K> {
         if (key == null)
             throw new IllegalArgumentException("Null key");
 
-        final int hash = normalizeIndex(key.hashCode());
+        if (oldKeyTable != null)
+            migrate(READ_MIGRATION_STEP);
+
+        final int keyHash = Hashing.spread(key.hashCode());
+        final int hash = normalizeIndex(keyHash);
         int probeIndex = 0, currentIndex = hash, tombstoneIndex = -1;
         boolean foundKey = false;
 
         K currentKey = keyTable[currentIndex];
-        while (!foundKey && currentKey != null) {
-            if (tombstoneIndex == -1 && currentKey.equals(TOMBSTONE))
+        while (currentKey != null) {
+            if (tombstoneIndex == -1 && currentKey == TOMBSTONE)
                 tombstoneIndex = currentIndex;
-            if (currentKey.equals(key))
+            if (matches(currentIndex, key, keyHash)) {
                 foundKey = true;
+                break;
+            }
 
             ++probeIndex;
             currentIndex = normalizeIndex(hash + P(probeIndex));
             currentKey = keyTable[currentIndex];
         }
 
+        if (!foundKey && oldKeyTable != null) {
+            int oldIndex = oldIndexOf(key, keyHash);
+            containsFlag = oldIndex != -1;
+            return containsFlag ? oldValueTable[oldIndex] : null;
+        }
+
+        containsFlag = foundKey;
         if (!foundKey)
             return null;
 
-        containsFlag = true;
         V foundValue = valueTable[currentIndex];
+        // lazy relocation: move the entry into the first tombstone on its probe
+        // path so the next lookup is shorter
         if (tombstoneIndex != -1) {
             keyTable[tombstoneIndex] = keyTable[currentIndex];
             valueTable[tombstoneIndex] = foundValue;
-            keyTable[currentIndex] = null;
+            hashTable[tombstoneIndex] = keyHash;
+            keyTable[currentIndex] = TOMBSTONE;
             valueTable[currentIndex] = null;
             ++modificationCount;
         }
         return foundValue;
     }
 
+    /**
+     * Looks up a batch of keys, storing the value of keys[i] (or null) in out[i].
+     * Returns the number of keys found.
+     *
+     * Keys are taken BATCH_SIZE at a time. All of their hashes are computed
+     * first, then their probe sequences are walked in lockstep, one step per key
+     * per round. The loads of different keys do not depend on each other, so the
+     * CPU can have several cache misses in flight instead of waiting for each
+     * one in turn like a loop of get calls would. Unlike get, entries are not
+     * moved into earlier tombstones
+     */
+    public int getAll(K[] keys, V[] out) {
+        if (out.length < keys.length)
+            throw new IllegalArgumentException("Output array shorter than keys");
+
+        int[] keyHashes = new int[BATCH_SIZE], indices = new int[BATCH_SIZE], probes = new int[BATCH_SIZE];
+        int[] pending = new int[BATCH_SIZE];
+        int found = 0;
+
+        for (int start = 0; start < keys.length; start += BATCH_SIZE) {
+            if (oldKeyTable != null)
+                migrate(READ_MIGRATION_STEP);
+
+            int lanes = Math.min(BATCH_SIZE, keys.length - start);
+            for (int lane = 0; lane < lanes; ++lane) {
+                K key = keys[start + lane];
+                if (key == null)
+                    throw new IllegalArgumentException("Null key");
+                keyHashes[lane] = Hashing.spread(key.hashCode());
+                indices[lane] = normalizeIndex(keyHashes[lane]);
+                probes[lane] = 0;
+                pending[lane] = lane;
+            }
+
+            // each round takes one probe step for every key still being looked up
+            for (int active = lanes; active > 0;) {
+                int stillActive = 0;
+                for (int i = 0; i < active; ++i) {
+                    int lane = pending[i], index = indices[lane];
+                    K key = keys[start + lane], current = keyTable[index];
+
+                    if (current == null) {
+                        int oldIndex = oldKeyTable == null ? -1 : oldIndexOf(key, keyHashes[lane]);
+                        out[start + lane] = oldIndex == -1 ? null : oldValueTable[oldIndex];
+                        if (oldIndex != -1)
+                            ++found;
+                    } else if (matches(index, key, keyHashes[lane])) {
+                        out[start + lane] = valueTable[index];
+                        ++found;
+                    } else {
+                        indices[lane] = normalizeIndex(normalizeIndex(keyHashes[lane]) + P(++probes[lane]));
+                        pending[stillActive++] = lane;
+                    }
+                }
+                active = stillActive;
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Inserts keys[i] => values[i] for every i, like calling put in order.
+     *
+     * Hashes are computed up front and keys already in the table are found with
+     * the same interleaved probing as getAll, then updated in place. Only the
+     * new keys go through a regular insert. The table is grown before each batch
+     * rather than in the middle of one, so the buckets found stay valid
+     */
+    public void putAll(K[] keys, V[] values) {
+        if (values.length < keys.length)
+            throw new IllegalArgumentException("Values array shorter than keys");
+
+        int[] keyHashes = new int[BATCH_SIZE], indices = new int[BATCH_SIZE], probes = new int[BATCH_SIZE];
+        int[] pending = new int[BATCH_SIZE];
+        boolean[] present = new boolean[BATCH_SIZE];
+
+        for (int start = 0; start < keys.length; start += BATCH_SIZE) {
+            int lanes = Math.min(BATCH_SIZE, keys.length - start);
+            for (int lane = 0; lane < lanes; ++lane) {
+                K key = keys[start + lane];
+                if (key == null)
+                    throw new IllegalArgumentException("Null key");
+                keyHashes[lane] = Hashing.spread(key.hashCode());
+            }
+
+            while (usedBuckets + lanes >= threshold)
+                resizeTable();
+
+            // mid incremental resize, inserts move entries between the tables
+            if (oldKeyTable != null) {
+                for (int lane = 0; lane < lanes; ++lane)
+                    insert(keys[start + lane], values[start + lane], keyHashes[lane]);
+                continue;
+            }
+
+            for (int lane = 0; lane < lanes; ++lane) {
+                indices[lane] = normalizeIndex(keyHashes[lane]);
+                probes[lane] = 0;
+                pending[lane] = lane;
+            }
+            for (int active = lanes; active > 0;) {
+                int stillActive = 0;
+                for (int i = 0; i < active; ++i) {
+                    int lane = pending[i], index = indices[lane];
+                    K current = keyTable[index];
+
+                    if (current == null)
+                        present[lane] = false;
+                    else if (matches(index, keys[start + lane], keyHashes[lane]))
+                        present[lane] = true;
+                    else {
+                        indices[lane] = normalizeIndex(normalizeIndex(keyHashes[lane]) + P(++probes[lane]));
+                        pending[stillActive++] = lane;
+                    }
+                }
+                active = stillActive;
+            }
+
+            // new keys never move existing entries, so the buckets found stay put
+            for (int lane = 0; lane < lanes; ++lane) {
+                if (present[lane])
+                    valueTable[indices[lane]] = values[start + lane];
+                else
+                    insert(keys[start + lane], values[start + lane], keyHashes[lane]);
+            }
+            ++modificationCount;
+        }
+    }
+
     public V remove(K key) {
-        int hash = normalizeIndex(key.hashCode());
+        if (key == null)
+            throw new IllegalArgumentException("Null key");
+
+        final int keyHash = Hashing.spread(key.hashCode());
+        if (oldKeyTable != null) {
+            int oldIndex = oldIndexOf(key, keyHash);
+            if (oldIndex != -1) {
+                V oldValue = oldValueTable[oldIndex];
+                oldKeyTable[oldIndex] = TOMBSTONE;
+                oldValueTable[oldIndex] = null;
+                ++modificationCount;
+                --keyCount;
+                migrate();
+                return oldValue;
+            }
+            migrate();
+        }
+
+        int hash = normalizeIndex(keyHash);
         boolean keyFound = false;
         int probeIndex = 0;
         int index = hash;
 
-        while (!keyFound && keyTable[index] != null) {
-            if (keyTable[index].equals(key))
+        while (keyTable[index] != null) {
+            if (matches(index, key, keyHash)) {
                 keyFound = true;
+                break;
+            }
             ++probeIndex;
             index = normalizeIndex(P(probeIndex) + hash);
         }
@@ -219,46 +467,170 @@ public class HashTableQuadraticProbing<K, V> implements Iterable<K> {
     }
 
     public List<K> keys() {
-        List<K> theKeys = new ArrayList<>(capacity);
-        for (int i = 0; keyTable[i] != null || i < capacity; ++i) {
-            if (!keyTable[i].equals(TOMBSTONE))
+        finishResize();
+        List<K> theKeys = new ArrayList<>(keyCount);
+        for (int i = 0; i < capacity; ++i) {
+            if (keyTable[i] != null && keyTable[i] != TOMBSTONE)
                 theKeys.add(keyTable[i]);
         }
         return theKeys;
     }
 
     public List<V> values() {
-        List<V> theValues = new ArrayList<>(capacity);
-        for (int i = 0; keyTable[i] != null || i < capacity; ++i) {
-            if (!keyTable[i].equals(TOMBSTONE))
+        finishResize();
+        List<V> theValues = new ArrayList<>(keyCount);
+        for (int i = 0; i < capacity; ++i) {
+            if (keyTable[i] != null && keyTable[i] != TOMBSTONE)
                 theValues.add(valueTable[i]);
         }
         return theValues;
     }
 
+    /**
+     * Calls action with every key and value, walking the table arrays in place.
+     * The table must not be changed meanwhile
+     */
+    public void forEach(BiConsumer<? super K, ? super V> action) {
+        finishResize();
+        final int MODIFICATION_COUNT = modificationCount;
+
+        for (int i = 0; i < capacity; ++i) {
+            K key = keyTable[i];
+            if (key != null && key != TOMBSTONE) {
+                action.accept(key, valueTable[i]);
+                if (MODIFICATION_COUNT != modificationCount)
+                    throw new ConcurrentModificationException();
+            }
+        }
+    }
+
+    /**
+     * A cursor over the entries, for scanning the whole table without an
+     * iterator or entry object per key. Call advance before reading the first
+     * entry. The table must not be changed while the cursor is in use
+     */
+    public EntryCursor<K, V> cursor() {
+        finishResize();
+        final int MODIFICATION_COUNT = modificationCount;
+
+        return new EntryCursor<K, V>() {
+            int index = -1;
+
+            @Override
+            public boolean advance() {
+                if (MODIFICATION_COUNT != modificationCount)
+                    throw new ConcurrentModificationException();
+                while (++index < capacity) {
+                    if (keyTable[index] != null && keyTable[index] != TOMBSTONE)
+                        return true;
+                }
+                return false;
+            }
+
+            @Override
+            public K key() {
+                if (index < 0 || index >= capacity)
+                    throw new NoSuchElementException();
+                return keyTable[index];
+            }
+
+            @Override
+            public V value() {
+                if (index < 0 || index >= capacity)
+                    throw new NoSuchElementException();
+                return valueTable[index];
+            }
+        };
+    }
+
     public void resizeTable() {
+        // a resize still in progress has to finish before another can start
+        finishResize();
+
         capacity *= 2;
         threshold = (int) (loadFactor * capacity);
 
         K[] tmpKeys = (K[]) new Object[capacity];
         V[] tmpVals = (V[]) new Object[capacity];
-        K[] oldKeys = keyTable;
-        V[] oldValues = valueTable;
+        oldKeyTable = keyTable;
+        oldValueTable = valueTable;
+        oldHashTable = hashTable;
         keyTable = tmpKeys;
         valueTable = tmpVals;
+        hashTable = new int[capacity];
 
         usedBuckets = 0;
+        migrationIndex = 0;
+
+        if (!incrementalResize)
+            finishResize();
+    }
+
+    /** Move every remaining entry out of the old table */
+    private void finishResize() {
+        while (oldKeyTable != null)
+            migrate(oldKeyTable.length);
+    }
+
+    private void migrate() {
+        migrate(MIGRATION_STEP);
+    }
+
+    /** Move up to the given number of old table buckets into the current table */
+    private void migrate(int buckets) {
+        int end = Math.min(oldKeyTable.length, migrationIndex + buckets);
+
+        // moved entries leave a TOMBSTONE so that probes for the entries still
+        // in the old table do not stop short
+        for (int i = migrationIndex; i < end; ++i) {
+            if (oldKeyTable[i] != null && oldKeyTable[i] != TOMBSTONE) {
+                placeRehashed(oldKeyTable[i], oldValueTable[i], oldHashTable[i]);
+                oldKeyTable[i] = TOMBSTONE;
+                oldValueTable[i] = null;
+            }
+        }
 
-        for (int i = 0; i < oldKeys.length; ++i) {
-            if (!oldKeys[i].equals(TOMBSTONE) || oldKeys[i] != null)
-                insert(oldKeys[i], oldValues[i]);
-            oldKeys[i] = null;
-            oldValues[i] = null;
+        migrationIndex = end;
+        if (end == oldKeyTable.length) {
+            oldKeyTable = null;
+            oldValueTable = null;
+            oldHashTable = null;
         }
     }
 
+    /**
+     * Put a key known not to be in the current table into the first free bucket
+     * on its probe path, using its cached hash
+     */
+    private void placeRehashed(K key, V value, int keyHash) {
+        int hash = normalizeIndex(keyHash), index = hash;
+        for (int probeIndex = 1; keyTable[index] != null && keyTable[index] != TOMBSTONE; ++probeIndex)
+            index = normalizeIndex(hash + P(probeIndex));
+
+        if (keyTable[index] == null)
+            ++usedBuckets;
+        keyTable[index] = key;
+        valueTable[index] = value;
+        hashTable[index] = keyHash;
+    }
+
+    /** Bucket of the old table holding key, or -1 */
+    private int oldIndexOf(K key, int keyHash) {
+        int mask = oldKeyTable.length - 1, hash = keyHash & mask, index = hash;
+
+        for (int probeIndex = 1; oldKeyTable[index] != null; ++probeIndex) {
+            K current = oldKeyTable[index];
+            if (current != TOMBSTONE && oldHashTable[index] == keyHash && current.equals(key))
+                return index;
+            index = (hash + P(probeIndex)) & mask;
+        }
+        return -1;
+    }
+
     @Override
     public Iterator<K> iterator() {
+        finishResize();
+
         // for ensuring that the hash table is not modified while we are
         // iterating it
         final int MODIFICATION_COUNT = modificationCount;
@@ -275,7 +647,7 @@ public class HashTableQuadraticProbing<K, V> implements Iterable<K> {
 
             @Override
             public K next() {
-                while (keyTable[index] == null || keyTable[index].equals(TOMBSTONE))
+                while (keyTable[index] == null || keyTable[index] == TOMBSTONE)
                     ++index;
                 --keysLeft;
                 return keyTable[index++];
@@ -290,6 +662,7 @@ public class HashTableQuadraticProbing<K, V> implements Iterable<K> {
 
     @Override
     public String toString() {
+        finishResize();
         StringBuilder sb = new StringBuilder();
         sb.append("{");
 
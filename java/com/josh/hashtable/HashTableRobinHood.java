@@ -0,0 +1,328 @@
+package com.josh.hashtable;
+
+import java.util.ArrayList;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Open addressing hash table using Robin Hood hashing with linear probing.
+ *
+ * Each entry's probe length is its distance from its home bucket. When an
+ * insert meets an entry with a shorter probe length than the one it is
+ * carrying, the two swap places ("take from the rich"). This keeps probe
+ * lengths close to the average. Lookups can stop as soon as they meet an entry
+ * closer to home than the key would be.
+ *
+ * remove uses backward shift deletion. The entries after the removed one are
+ * moved back one bucket until an empty bucket or an entry already at home is
+ * reached. No TOMBSTONE is left behind, so insert/remove churn cannot fill up
+ * the table with deleted buckets.
+ */
+@SuppressWarnings("unchecked")
+public class HashTableRobinHood<K, V> implements Iterable<K> {
+    private final static int DEFAULT_CAPACITY = 8;
+    private final static double DEFAULT_LOAD_FACTOR = 0.75;
+
+    /** items in table / maximum size of table */
+    private final double loadFactor;
+    private int capacity, mask, modificationCount = 0;
+    /** loadFactor * capacity */
+    private int threshold;
+    /** Number of unique keys inside hash table */
+    private int keyCount = 0;
+
+    // These arrays store key-value pairs and the spread hash of each key
+    private K[] keyTable;
+    private V[] valueTable;
+    private int[] hashTable;
+
+    public HashTableRobinHood() {
+        this(DEFAULT_CAPACITY, DEFAULT_LOAD_FACTOR);
+    }
+
+    public HashTableRobinHood(int capacity) {
+        this(capacity, DEFAULT_LOAD_FACTOR);
+    }
+
+    public HashTableRobinHood(int capacity, double loadFactor) {
+        if (capacity <= 0)
+            throw new IllegalArgumentException("Invalid capacity: " + capacity);
+        if (loadFactor <= 0 || loadFactor >= 1 || Double.isNaN(loadFactor))
+            throw new IllegalArgumentException("Invalid load factor: " + loadFactor);
+
+        this.loadFactor = loadFactor;
+        allocate(Math.max(DEFAULT_CAPACITY, next2Power(capacity)));
+    }
+
+    /** Find the closest power of 2 at or above n */
+    private static int next2Power(int n) {
+        int power = Integer.highestOneBit(n);
+        return power == n ? n : power << 1;
+    }
+
+    /** Mix the high bits of the hash into the low bits used for indexing */
+    private static int spread(int keyHash) {
+        return keyHash ^ (keyHash >>> 16);
+    }
+
+    /** Distance of the entry in bucket i from its home bucket */
+    private int probeLength(int i) {
+        return (i - (hashTable[i] & mask)) & mask;
+    }
+
+    private void allocate(int capacity) {
+        this.capacity = capacity;
+        mask = capacity - 1;
+        threshold = (int) (loadFactor * capacity);
+        keyTable = (K[]) new Object[capacity];
+        valueTable = (V[]) new Object[capacity];
+        hashTable = new int[capacity];
+    }
+
+    /** Empties the hash table */
+    public void clear() {
+        for (int i = 0; i < capacity; ++i) {
+            keyTable[i] = null;
+            valueTable[i] = null;
+        }
+        keyCount = 0;
+        ++modificationCount;
+    }
+
+    public int size() {
+        return keyCount;
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    // insert, put and add pretty much do the same thing
+    public V put(K key, V value) {
+        return insert(key, value);
+    }
+
+    public V add(K key, V value) {
+        return insert(key, value);
+    }
+
+    /**
+     * Inserts a key, value pair into the hash table or updates value if key already
+     * exists
+     */
+    public V insert(K key, V value) {
+        if (key == null)
+            throw new IllegalArgumentException("Null key");
+
+        int hash = spread(key.hashCode());
+        int index = indexOf(key, hash);
+        if (index != -1) {
+            V oldValue = valueTable[index];
+            valueTable[index] = value;
+            return oldValue;
+        }
+
+        if (keyCount >= threshold)
+            resizeTable();
+        place(key, value, hash);
+        ++keyCount;
+        ++modificationCount;
+        return null;
+    }
+
+    /** Insert an entry known not to be in the table */
+    private void place(K key, V value, int hash) {
+        int index = hash & mask, distance = 0;
+
+        while (keyTable[index] != null) {
+            int existing = probeLength(index);
+            if (existing < distance) {
+                // the resident is closer to home than we are: take its bucket
+                // and carry it further along instead
+                K tmpKey = keyTable[index];
+                V tmpValue = valueTable[index];
+                int tmpHash = hashTable[index];
+                keyTable[index] = key;
+                valueTable[index] = value;
+                hashTable[index] = hash;
+                key = tmpKey;
+                value = tmpValue;
+                hash = tmpHash;
+                distance = existing;
+            }
+            index = (index + 1) & mask;
+            ++distance;
+        }
+
+        keyTable[index] = key;
+        valueTable[index] = value;
+        hashTable[index] = hash;
+    }
+
+    /** Bucket holding key, or -1 if it is not in the table */
+    private int indexOf(K key, int hash) {
+        int index = hash & mask;
+
+        for (int distance = 0; keyTable[index] != null; ++distance) {
+            // everything from here on is closer to home than key would be
+            if (probeLength(index) < distance)
+                return -1;
+            if (hashTable[index] == hash && keyTable[index].equals(key))
+                return index;
+            index = (index + 1) & mask;
+        }
+        return -1;
+    }
+
+    public boolean containsKey(K key) {
+        return hasKey(key);
+    }
+
+    public boolean hasKey(K key) {
+        if (key == null)
+            throw new IllegalArgumentException("Null key");
+        return indexOf(key, spread(key.hashCode())) != -1;
+    }
+
+    public V get(K key) {
+        if (key == null)
+            throw new IllegalArgumentException("Null key");
+
+        int index = indexOf(key, spread(key.hashCode()));
+        return index == -1 ? null : valueTable[index];
+    }
+
+    public V remove(K key) {
+        if (key == null)
+            throw new IllegalArgumentException("Null key");
+
+        int index = indexOf(key, spread(key.hashCode()));
+        if (index == -1)
+            return null;
+
+        V oldValue = valueTable[index];
+
+        // shift the following entries back by one until one is already at home
+        int next = (index + 1) & mask;
+        while (keyTable[next] != null && probeLength(next) != 0) {
+            keyTable[index] = keyTable[next];
+            valueTable[index] = valueTable[next];
+            hashTable[index] = hashTable[next];
+            index = next;
+            next = (next + 1) & mask;
+        }
+        keyTable[index] = null;
+        valueTable[index] = null;
+
+        --keyCount;
+        ++modificationCount;
+        return oldValue;
+    }
+
+    private void resizeTable() {
+        K[] oldKeys = keyTable;
+        V[] oldValues = valueTable;
+        int[] oldHashes = hashTable;
+        allocate(capacity * 2);
+
+        for (int i = 0; i < oldKeys.length; ++i) {
+            if (oldKeys[i] != null)
+                place(oldKeys[i], oldValues[i], oldHashes[i]);
+        }
+    }
+
+    /** Longest distance any entry sits from its home bucket */
+    public int maxProbeLength() {
+        int max = 0;
+        for (int i = 0; i < capacity; ++i) {
+            if (keyTable[i] != null)
+                max = Math.max(max, probeLength(i));
+        }
+        return max;
+    }
+
+    /** Average distance of entries from their home buckets */
+    public double averageProbeLength() {
+        if (keyCount == 0)
+            return 0;
+        long total = 0;
+        for (int i = 0; i < capacity; ++i) {
+            if (keyTable[i] != null)
+                total += probeLength(i);
+        }
+        return (double) total / keyCount;
+    }
+
+    /** histogram[d] is the number of entries sitting d buckets from home */
+    public int[] probeLengthHistogram() {
+        int[] histogram = new int[maxProbeLength() + 1];
+        for (int i = 0; i < capacity; ++i) {
+            if (keyTable[i] != null)
+                ++histogram[probeLength(i)];
+        }
+        return histogram;
+    }
+
+    public List<K> keys() {
+        List<K> theKeys = new ArrayList<>(keyCount);
+        for (int i = 0; i < capacity; ++i) {
+            if (keyTable[i] != null)
+                theKeys.add(keyTable[i]);
+        }
+        return theKeys;
+    }
+
+    public List<V> values() {
+        List<V> theValues = new ArrayList<>(keyCount);
+        for (int i = 0; i < capacity; ++i) {
+            if (keyTable[i] != null)
+                theValues.add(valueTable[i]);
+        }
+        return theValues;
+    }
+
+    @Override
+    public Iterator<K> iterator() {
+        // for ensuring that the hash table is not modified while we are
+        // iterating it
+        final int MODIFICATION_COUNT = modificationCount;
+
+        return new Iterator<K>() {
+            int keysLeft = keyCount, index = 0;
+
+            @Override
+            public boolean hasNext() {
+                if (MODIFICATION_COUNT != modificationCount)
+                    throw new ConcurrentModificationException();
+                return keysLeft != 0;
+            }
+
+            @Override
+            public K next() {
+                while (keyTable[index] == null)
+                    ++index;
+                --keysLeft;
+                return keyTable[index++];
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("{");
+
+        for (int i = 0; i < keyTable.length; ++i) {
+            if (keyTable[i] != null)
+                sb.append(keyTable[i] + " => " + valueTable[i] + ",");
+        }
+        sb.append("}");
+        return sb.toString();
+    }
+}
@@ -4,37 +4,21 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.ConcurrentModificationException;
 import java.util.Iterator;
-import java.util.LinkedList;
 import java.util.List;
-
-class Entry<K, V> {
-    K key;
-    V value;
-    int hash;
-
-    public Entry(K key, V value) {
-        this.key = key;
-        this.value = value;
-        this.hash = key.hashCode();
-    }
-
-    public boolean equals(Entry<K, V> other) {
-        if (hash != other.hash)
-            return false;
-        return value == other.value;
-    }
-
-    @Override
-    public String toString() {
-        return key + "=>" + value;
-    }
-}
+import java.util.NoSuchElementException;
+import java.util.function.BiConsumer;
 
 @SuppressWarnings("unchecked")
 public class HashTableSeparateChaining<K, V> implements Iterable<K> {
     private static final int DEFAULT_CAPACITY = 3;
     private static final double DEFAULT_LOAD_FACTOR = 0.75;
 
+    /** A list bucket growing past this many entries is turned into a tree */
+    static final int TREEIFY_THRESHOLD = 8;
+
+    /** A tree bucket shrinking below this many entries is turned back into a list */
+    static final int UNTREEIFY_THRESHOLD = 6;
+
     /** Once maximum load factor exceeds this value, resize the table */
     private double maxLoadFactor;
 
@@ -50,8 +34,36 @@ public class HashTableSeparateChaining<K, V> implements Iterable<K> {
     /** Number of items stored in the hashtable */
     private int size = 0;
 
-    /** Fixed length array of linked lists to represent the hashtable */
-    private LinkedList<Entry<K, V>>[] table;
+    /**
+     * Fixed length array of buckets to represent the hashtable. A bucket is a
+     * chain of entries, also kept as an AVL tree once many keys collide in it
+     * (see {@link TreeBucket})
+     */
+    private Bucket<K, V>[] table;
+
+    /**
+     * Whether resizes move buckets over a few at a time instead of all at once
+     */
+    private final boolean incrementalResize;
+
+    /**
+     * During an incremental resize, the previous table. Its buckets are drained
+     * into the current table by later inserts, removes and lookups. null
+     * otherwise
+     */
+    private Bucket<K, V>[] oldTable;
+
+    /** Next bucket of the old table to move over */
+    private int migrationIndex;
+
+    /** Old table buckets moved per insert or remove during an incremental resize */
+    private static final int MIGRATION_STEP = 4;
+
+    /**
+     * Old table buckets moved per lookup, so that a table which is only read
+     * after a resize starts still gets to drop the old table
+     */
+    private static final int READ_MIGRATION_STEP = 1;
 
     public HashTableSeparateChaining() {
         this(DEFAULT_CAPACITY, DEFAULT_LOAD_FACTOR);
@@ -62,14 +74,29 @@ public class HashTableSeparateChaining<K, V> implements Iterable<K> {
     }
 
     public HashTableSeparateChaining(int capacity, double maxLoadFactor) {
+        this(capacity, maxLoadFactor, false);
+    }
+
+    /**
+     * With incrementalResize set, growing the table no longer rehashes every
+     * entry in one go. The old table is kept, lookups check both, and each
+     * insert or remove moves a few buckets over. That keeps the cost of any
+     * single put flat while the table grows
+     */
+    public HashTableSeparateChaining(int capacity, double maxLoadFactor, boolean incrementalResize) {
         if (capacity < 0)
             throw new IllegalArgumentException("Illegal capacity");
         if (maxLoadFactor <= 0 || Double.isInfinite(maxLoadFactor) || Double.isNaN(maxLoadFactor))
             throw new IllegalArgumentException("Illegal maxLoadFactor");
         this.maxLoadFactor = maxLoadFactor;
+        this.incrementalResize = incrementalResize;
         this.capacity = Math.max(capacity, DEFAULT_CAPACITY);
         threshold = (int) (this.capacity * this.maxLoadFactor);
-        table = new LinkedList[this.capacity];
+        table = newTable(this.capacity);
+    }
+
+    private static <K, V> Bucket<K, V>[] newTable(int capacity) {
+        return (Bucket<K, V>[]) new Bucket<?, ?>[capacity];
     }
 
     public int size() {
@@ -83,7 +110,7 @@ public class HashTableSeparateChaining<K, V> implements Iterable<K> {
     /**
      * The hashing method
      * 
-     * Converts hash value to an index
+     * Converts a spread hash value (see {@link Hashing#spread}) to an index
      * 
      * It strips the negative sign and places the hash value in the domain<br>
      * [0, capacity]
@@ -94,6 +121,7 @@ public class HashTableSeparateChaining<K, V> implements Iterable<K> {
 
     public void clear() {
         Arrays.fill(table, null);
+        oldTable = null;
         size = 0;
     }
 
@@ -102,8 +130,12 @@ public class HashTableSeparateChaining<K, V> implements Iterable<K> {
     }
 
     public boolean hasKey(K key) {
-        int bucketIndex = normalizeIndex(key.hashCode());
-        return bucketSeekEntry(bucketIndex, key) != null;
+        if (key == null)
+            return false;
+        if (oldTable != null)
+            migrate(READ_MIGRATION_STEP);
+        int hash = Hashing.spread(key.hashCode());
+        return bucketSeekEntry(normalizeIndex(hash), key, hash) != null || oldTableSeekEntry(key, hash) != null;
     }
 
     public V put(K key, V value) {
@@ -118,16 +150,30 @@ public class HashTableSeparateChaining<K, V> implements Iterable<K> {
         if (key == null)
             throw new IllegalArgumentException("Null key not allowed");
         Entry<K, V> newEntry = new Entry<>(key, value);
-        int bucketIndex = normalizeIndex(key.hashCode());
+        if (oldTable != null) {
+            // a key still in the old table is updated where it is
+            Entry<K, V> existent = oldTableSeekEntry(key, newEntry.hash);
+            migrate();
+            if (existent != null) {
+                V oldValue = existent.value;
+                existent.value = value;
+                return oldValue;
+            }
+        }
+        int bucketIndex = normalizeIndex(newEntry.hash);
         return bucketInsertEntry(bucketIndex, newEntry);
     }
 
     public V get(K key) {
         if (key == null)
             return null;
+        if (oldTable != null)
+            migrate(READ_MIGRATION_STEP);
 
-        int bucketIndex = normalizeIndex(key.hashCode());
-        Entry<K, V> entry = bucketSeekEntry(bucketIndex, key);
+        int hash = Hashing.spread(key.hashCode());
+        Entry<K, V> entry = bucketSeekEntry(normalizeIndex(hash), key, hash);
+        if (entry == null)
+            entry = oldTableSeekEntry(key, hash);
         if (entry != null)
             return entry.value;
         return null;
@@ -136,16 +182,30 @@ public class HashTableSeparateChaining<K, V> implements Iterable<K> {
     public V remove(K key) {
         if (key == null)
             return null;
-        int bucketIndex = normalizeIndex(key.hashCode());
-        return bucketRemoveEntry(bucketIndex, key);
+        int hash = Hashing.spread(key.hashCode());
+        if (oldTable != null) {
+            Entry<K, V> entry = oldTableSeekEntry(key, hash);
+            if (entry != null) {
+                int oldIndex = oldIndex(hash);
+                oldTable[oldIndex].remove(entry);
+                oldTable[oldIndex] = untreeify(oldTable[oldIndex]);
+                --size;
+                migrate();
+                return entry.value;
+            }
+            migrate();
+        }
+        return bucketRemoveEntry(normalizeIndex(hash), key);
     }
 
     public V bucketRemoveEntry(int bucketIndex, K key) {
-        Entry<K, V> entry = bucketSeekEntry(bucketIndex, key);
+        if (key == null)
+            return null;
+        Entry<K, V> entry = bucketSeekEntry(bucketIndex, key, Hashing.spread(key.hashCode()));
 
         if (entry != null) {
-            LinkedList<Entry<K, V>> list = table[bucketIndex];
-            list.remove(entry);
+            table[bucketIndex].remove(entry);
+            table[bucketIndex] = untreeify(table[bucketIndex]);
             --size;
             return entry.value;
         } else
@@ -160,13 +220,9 @@ public class HashTableSeparateChaining<K, V> implements Iterable<K> {
      * into the hash table and nothing is returned
      */
     private V bucketInsertEntry(int bucketIndex, Entry<K, V> entry) {
-        LinkedList<Entry<K, V>> bucket = table[bucketIndex];
-        if (bucket == null)
-            table[bucketIndex] = bucket = new LinkedList<>();
-
-        Entry<K, V> existent = bucketSeekEntry(bucketIndex, entry.key);
+        Entry<K, V> existent = bucketSeekEntry(bucketIndex, entry.key, entry.hash);
         if (existent == null) {
-            bucket.add(entry);
+            bucketAppend(bucketIndex, entry);
             if (++size > threshold)
                 resize();
             return null;
@@ -177,49 +233,104 @@ public class HashTableSeparateChaining<K, V> implements Iterable<K> {
         }
     }
 
-    private Entry<K, V> bucketSeekEntry(int bucketIndex, K key) {
+    /** Adds an entry known not to be in the bucket, treeifying a long list */
+    private void bucketAppend(int bucketIndex, Entry<K, V> entry) {
+        Bucket<K, V> bucket = table[bucketIndex];
+        if (bucket == null)
+            table[bucketIndex] = bucket = new ListBucket<>();
+
+        bucket.add(entry);
+        if (bucket instanceof ListBucket && bucket.size() > TREEIFY_THRESHOLD)
+            table[bucketIndex] = new TreeBucket<>(bucket);
+    }
+
+    /**
+     * Turns a tree bucket that has shrunk back into a list. The gap between the
+     * two thresholds stops a bucket from flipping back and forth
+     */
+    private Bucket<K, V> untreeify(Bucket<K, V> bucket) {
+        if (bucket instanceof TreeBucket && bucket.size() < UNTREEIFY_THRESHOLD)
+            return new ListBucket<>(bucket);
+        return bucket;
+    }
+
+    /** Finds key in a bucket, only calling equals on entries with the same hash */
+    private Entry<K, V> bucketSeekEntry(int bucketIndex, K key, int hash) {
         if (key == null)
             return null;
 
-        LinkedList<Entry<K, V>> bucket = table[bucketIndex];
+        Bucket<K, V> bucket = table[bucketIndex];
         if (bucket == null)
             return null;
-
-        for (Entry<K, V> entry : bucket) {
-            if (entry.key.equals(key))
-                return entry;
-        }
-        return null;
+        return bucket.seek(key, hash);
     }
 
     private void resize() {
+        // a resize still in progress has to finish before another can start
+        finishResize();
+
         capacity *= 2;
         threshold = (int) (capacity * maxLoadFactor);
-        LinkedList<Entry<K, V>>[] newTable = new LinkedList[capacity];
+        oldTable = table;
+        table = newTable(capacity);
+        migrationIndex = 0;
 
-        // copy all items in old hashtable to new hashtable
-        for (int i = 0; i < table.length; ++i) {
-            if (table[i] != null) {
-                for (Entry<K, V> entry : table[i]) {
-                    int bucketIndex = normalizeIndex(entry.hash);
-                    LinkedList<Entry<K, V>> newBucket = newTable[bucketIndex];
-                    if (newBucket == null)
-                        newTable[i] = newBucket = new LinkedList<>();
-                    newBucket.add(entry);
+        if (!incrementalResize)
+            finishResize();
+    }
+
+    /** Move every remaining bucket out of the old table */
+    private void finishResize() {
+        while (oldTable != null)
+            migrate(oldTable.length);
+    }
+
+    private void migrate() {
+        migrate(MIGRATION_STEP);
+    }
+
+    /** Copy up to the given number of old table buckets into the current table */
+    private void migrate(int buckets) {
+        int end = Math.min(oldTable.length, migrationIndex + buckets);
+
+        for (int i = migrationIndex; i < end; ++i) {
+            if (oldTable[i] != null) {
+                // appending relinks the entry, so read next first
+                for (Entry<K, V> entry = oldTable[i].head, next; entry != null; entry = next) {
+                    next = entry.next;
+                    bucketAppend(normalizeIndex(entry.hash), entry);
                 }
                 // remove old data
-                table[i].clear();
-                table[i] = null;
+                oldTable[i] = null;
             }
         }
-        table = newTable;
+
+        migrationIndex = end;
+        if (end == oldTable.length)
+            oldTable = null;
+    }
+
+    private int oldIndex(int keyHash) {
+        return (keyHash & 0x7fffffff) % oldTable.length;
+    }
+
+    /** Finds key in the old table during an incremental resize */
+    private Entry<K, V> oldTableSeekEntry(K key, int hash) {
+        if (oldTable == null)
+            return null;
+
+        Bucket<K, V> bucket = oldTable[oldIndex(hash)];
+        if (bucket == null)
+            return null;
+        return bucket.seek(key, hash);
     }
 
     public List<K> keys() {
+        finishResize();
         List<K> keys = new ArrayList<>(size());
-        for (LinkedList<Entry<K, V>> bucket : table) {
+        for (Bucket<K, V> bucket : table) {
             if (bucket != null) {
-                for (Entry<K, V> entry : bucket)
+                for (Entry<K, V> entry = bucket.head; entry != null; entry = entry.next)
                     keys.add(entry.key);
             }
         }
@@ -227,18 +338,87 @@ public class HashTableSeparateChaining<K, V> implements Iterable<K> {
     }
 
     public List<V> values() {
+        finishResize();
         List<V> values = new ArrayList<>(size());
-        for (LinkedList<Entry<K, V>> bucket : table) {
+        for (Bucket<K, V> bucket : table) {
             if (bucket != null) {
-                for (Entry<K, V> entry : bucket)
+                for (Entry<K, V> entry = bucket.head; entry != null; entry = entry.next)
                     values.add(entry.value);
             }
         }
         return values;
     }
 
+    /**
+     * Calls action with every key and value, walking the buckets in place. The
+     * table must not be changed meanwhile
+     */
+    public void forEach(BiConsumer<? super K, ? super V> action) {
+        finishResize();
+        final int expectedElements = size();
+
+        for (Bucket<K, V> bucket : table) {
+            if (bucket == null)
+                continue;
+            for (Entry<K, V> entry = bucket.head; entry != null; entry = entry.next) {
+                action.accept(entry.key, entry.value);
+                if (expectedElements != size())
+                    throw new ConcurrentModificationException();
+            }
+        }
+    }
+
+    /**
+     * A cursor over the entries, for scanning the whole table without an
+     * iterator or entry object per key. Call advance before reading the first
+     * entry. The table must not be changed while the cursor is in use
+     */
+    public EntryCursor<K, V> cursor() {
+        finishResize();
+        final int expectedElements = size();
+
+        return new EntryCursor<K, V>() {
+            int bucketIndex = -1;
+            Entry<K, V> entry = null;
+
+            @Override
+            public boolean advance() {
+                if (expectedElements != size())
+                    throw new ConcurrentModificationException();
+
+                if (entry != null && entry.next != null) {
+                    entry = entry.next;
+                    return true;
+                }
+                while (++bucketIndex < table.length) {
+                    if (table[bucketIndex] != null && table[bucketIndex].head != null) {
+                        entry = table[bucketIndex].head;
+                        return true;
+                    }
+                }
+                entry = null;
+                return false;
+            }
+
+            @Override
+            public K key() {
+                if (entry == null)
+                    throw new NoSuchElementException();
+                return entry.key;
+            }
+
+            @Override
+            public V value() {
+                if (entry == null)
+                    throw new NoSuchElementException();
+                return entry.value;
+            }
+        };
+    }
+
     @Override
     public java.util.Iterator<K> iterator() {
+        finishResize();
         final int expectedElements = size();
 
         return new java.util.Iterator<K>() {
@@ -279,12 +459,13 @@ public class HashTableSeparateChaining<K, V> implements Iterable<K> {
 
     @Override
     public String toString() {
+        finishResize();
         StringBuilder sb = new StringBuilder();
         sb.append("{");
 
         for (int i = 0; i < table.length; ++i) {
             if (table[i] != null) {
-                for (Entry<K, V> entry : table[i])
+                for (Entry<K, V> entry = table[i].head; entry != null; entry = entry.next)
                     sb.append(entry + ",");
             }
         }
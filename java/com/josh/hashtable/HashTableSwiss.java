@@ -0,0 +1,331 @@
+package com.josh.hashtable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Open addressing hash table in the style of a Swiss table.
+ *
+ * Buckets are split into groups of 8. Every bucket has a control byte, and
+ * the control bytes of a group are packed into one long. A full bucket's
+ * control byte holds 7 bits of its key's hash (h2). Empty and deleted buckets
+ * have the high bit set. A lookup compares h2 against all 8 control bytes of
+ * a group with a few long operations (SWAR, SIMD within a register). It only
+ * calls equals on buckets whose byte matches, which usually means one or
+ * none. Groups are probed with the same triangular quadratic sequence as
+ * {@link HashTableQuadraticProbing}. A probe stops at the first group with an
+ * empty bucket.
+ */
+@SuppressWarnings("unchecked")
+public class HashTableSwiss<K, V> implements Iterable<K> {
+    private final static int GROUP_SIZE = 8;
+    private final static int DEFAULT_CAPACITY = 16;
+
+    /** Control byte of a bucket that has never held an entry */
+    private final static long EMPTY = 0x80;
+    /** Control byte of a bucket whose entry was removed */
+    private final static long DELETED = 0xFE;
+
+    private final static long LSBS = 0x0101010101010101L;
+    private final static long MSBS = 0x8080808080808080L;
+    private final static long ALL_EMPTY = EMPTY * LSBS;
+
+    private int capacity, groupMask, modificationCount = 0;
+    /** 7/8 of capacity */
+    private int threshold;
+    /** Number of buckets that are full or deleted */
+    private int usedBuckets = 0;
+    /** Number of unique keys inside hash table */
+    private int keyCount = 0;
+
+    /** Control bytes, 8 buckets per long, bucket i in byte (i & 7) */
+    private long[] controls;
+    private K[] keyTable;
+    private V[] valueTable;
+
+    public HashTableSwiss() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public HashTableSwiss(int capacity) {
+        if (capacity <= 0)
+            throw new IllegalArgumentException("Invalid capacity: " + capacity);
+        allocate(Math.max(DEFAULT_CAPACITY, next2Power(capacity + capacity / 7)));
+    }
+
+    /** Find the closest power of 2 at or above n */
+    private static int next2Power(int n) {
+        int power = Integer.highestOneBit(n);
+        return power == n ? n : power << 1;
+    }
+
+    /** Quadratic probing function P(x)=(x^2+x)/2 */
+    private static int P(int n) {
+        return (n * n + n) >> 1;
+    }
+
+    /** Mix the key's hash so both the group index and h2 get good bits */
+    private static int hash(Object key) {
+        int h = key.hashCode() * 0x9E3779B9;
+        return h ^ (h >>> 15);
+    }
+
+    /** Bytes of the group equal to h2, as a mask of their high bits */
+    private static long matchByte(long group, int h2) {
+        long x = group ^ (LSBS * h2);
+        return (x - LSBS) & ~x & MSBS;
+    }
+
+    /** Empty buckets have the high bit set and bit 1 clear, deleted ones both */
+    private static long matchEmpty(long group) {
+        return group & ~(group << 6) & MSBS;
+    }
+
+    private static long matchEmptyOrDeleted(long group) {
+        return group & MSBS;
+    }
+
+    /** Bucket within the group of the lowest matched byte */
+    private static int lowestMatch(long match) {
+        return Long.numberOfTrailingZeros(match) >>> 3;
+    }
+
+    private void allocate(int capacity) {
+        this.capacity = capacity;
+        groupMask = capacity / GROUP_SIZE - 1;
+        threshold = capacity - capacity / 8;
+        controls = new long[capacity / GROUP_SIZE];
+        Arrays.fill(controls, ALL_EMPTY);
+        keyTable = (K[]) new Object[capacity];
+        valueTable = (V[]) new Object[capacity];
+        usedBuckets = 0;
+    }
+
+    private void setControl(int bucket, long control) {
+        int shift = (bucket & (GROUP_SIZE - 1)) << 3;
+        long[] controls = this.controls;
+        int group = bucket >>> 3;
+        controls[group] = (controls[group] & ~(0xFFL << shift)) | (control << shift);
+    }
+
+    private boolean isFull(int bucket) {
+        return (controls[bucket >>> 3] & (0x80L << ((bucket & (GROUP_SIZE - 1)) << 3))) == 0;
+    }
+
+    /** Empties the hash table */
+    public void clear() {
+        Arrays.fill(controls, ALL_EMPTY);
+        Arrays.fill(keyTable, null);
+        Arrays.fill(valueTable, null);
+        keyCount = usedBuckets = 0;
+        ++modificationCount;
+    }
+
+    public int size() {
+        return keyCount;
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /** Bucket holding key, or -1 if it is not in the table */
+    private int indexOf(Object key, int hash) {
+        int h2 = hash & 0x7F, start = (hash >>> 7) & groupMask, group = start;
+
+        for (int probe = 1;; ++probe) {
+            long control = controls[group];
+            for (long match = matchByte(control, h2); match != 0; match &= match - 1) {
+                int bucket = (group << 3) + lowestMatch(match);
+                if (keyTable[bucket].equals(key))
+                    return bucket;
+            }
+            if (matchEmpty(control) != 0)
+                return -1;
+            group = (start + P(probe)) & groupMask;
+        }
+    }
+
+    /** First empty or deleted bucket on the key's probe sequence */
+    private int freeBucket(int hash) {
+        int start = (hash >>> 7) & groupMask, group = start;
+
+        for (int probe = 1;; ++probe) {
+            long match = matchEmptyOrDeleted(controls[group]);
+            if (match != 0)
+                return (group << 3) + lowestMatch(match);
+            group = (start + P(probe)) & groupMask;
+        }
+    }
+
+    public boolean containsKey(K key) {
+        return hasKey(key);
+    }
+
+    public boolean hasKey(K key) {
+        if (key == null)
+            throw new IllegalArgumentException("Null key");
+        return indexOf(key, hash(key)) != -1;
+    }
+
+    public V get(K key) {
+        if (key == null)
+            throw new IllegalArgumentException("Null key");
+        int bucket = indexOf(key, hash(key));
+        return bucket == -1 ? null : valueTable[bucket];
+    }
+
+    // insert, put and add pretty much do the same thing
+    public V put(K key, V value) {
+        return insert(key, value);
+    }
+
+    public V add(K key, V value) {
+        return insert(key, value);
+    }
+
+    /**
+     * Inserts a key, value pair into the hash table or updates value if key already
+     * exists
+     */
+    public V insert(K key, V value) {
+        if (key == null)
+            throw new IllegalArgumentException("Null key");
+
+        int hash = hash(key);
+        int bucket = indexOf(key, hash);
+        if (bucket != -1) {
+            V oldValue = valueTable[bucket];
+            valueTable[bucket] = value;
+            return oldValue;
+        }
+
+        if (usedBuckets >= threshold)
+            resizeTable();
+        bucket = freeBucket(hash);
+        if (!isDeleted(bucket))
+            ++usedBuckets;
+        setControl(bucket, hash & 0x7F);
+        keyTable[bucket] = key;
+        valueTable[bucket] = value;
+        ++keyCount;
+        ++modificationCount;
+        return null;
+    }
+
+    private boolean isDeleted(int bucket) {
+        return ((controls[bucket >>> 3] >>> ((bucket & (GROUP_SIZE - 1)) << 3)) & 0xFF) == DELETED;
+    }
+
+    public V remove(K key) {
+        if (key == null)
+            throw new IllegalArgumentException("Null key");
+
+        int bucket = indexOf(key, hash(key));
+        if (bucket == -1)
+            return null;
+
+        V oldValue = valueTable[bucket];
+        keyTable[bucket] = null;
+        valueTable[bucket] = null;
+
+        // a group that still has an empty bucket has never been probed past, so
+        // the bucket can go straight back to empty instead of deleted
+        if (matchEmpty(controls[bucket >>> 3]) != 0) {
+            setControl(bucket, EMPTY);
+            --usedBuckets;
+        } else
+            setControl(bucket, DELETED);
+
+        --keyCount;
+        ++modificationCount;
+        return oldValue;
+    }
+
+    /**
+     * Grows the table, or rehashes it at the same size if most used buckets are
+     * only deleted markers
+     */
+    private void resizeTable() {
+        K[] oldKeys = keyTable;
+        V[] oldValues = valueTable;
+        long[] oldControls = controls;
+        allocate(keyCount >= threshold / 2 ? capacity * 2 : capacity);
+
+        for (int i = 0; i < oldKeys.length; ++i) {
+            if (((oldControls[i >>> 3] >>> ((i & (GROUP_SIZE - 1)) << 3)) & 0x80) != 0)
+                continue;
+            int hash = hash(oldKeys[i]);
+            int bucket = freeBucket(hash);
+            setControl(bucket, hash & 0x7F);
+            keyTable[bucket] = oldKeys[i];
+            valueTable[bucket] = oldValues[i];
+            ++usedBuckets;
+        }
+    }
+
+    public List<K> keys() {
+        List<K> theKeys = new ArrayList<>(keyCount);
+        for (int i = 0; i < capacity; ++i) {
+            if (isFull(i))
+                theKeys.add(keyTable[i]);
+        }
+        return theKeys;
+    }
+
+    public List<V> values() {
+        List<V> theValues = new ArrayList<>(keyCount);
+        for (int i = 0; i < capacity; ++i) {
+            if (isFull(i))
+                theValues.add(valueTable[i]);
+        }
+        return theValues;
+    }
+
+    @Override
+    public Iterator<K> iterator() {
+        // for ensuring that the hash table is not modified while we are
+        // iterating it
+        final int MODIFICATION_COUNT = modificationCount;
+
+        return new Iterator<K>() {
+            int keysLeft = keyCount, index = 0;
+
+            @Override
+            public boolean hasNext() {
+                if (MODIFICATION_COUNT != modificationCount)
+                    throw new ConcurrentModificationException();
+                return keysLeft != 0;
+            }
+
+            @Override
+            public K next() {
+                while (!isFull(index))
+                    ++index;
+                --keysLeft;
+                return keyTable[index++];
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("{");
+
+        for (int i = 0; i < capacity; ++i) {
+            if (isFull(i))
+                sb.append(keyTable[i] + " => " + valueTable[i] + ",");
+        }
+        sb.append("}");
+        return sb.toString();
+    }
+}
@@ -0,0 +1,23 @@
+package com.josh.hashtable;
+
+/** Hash helpers shared by the hash tables in this package */
+final class Hashing {
+    private Hashing() {
+    }
+
+    /**
+     * Murmur3 32 bit finalizer. Every input bit affects every output bit, so
+     * keys whose hashCode only differs in the high bits (sequential ids, aligned
+     * addresses) still land in different buckets once the hash is masked or
+     * reduced
+     */
+    static int spread(int keyHash) {
+        int h = keyHash;
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        h ^= h >>> 16;
+        return h;
+    }
+}
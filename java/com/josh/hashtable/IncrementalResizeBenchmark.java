@@ -0,0 +1,52 @@
+package com.josh.hashtable;
+
+import java.util.Arrays;
+
+/**
+ * Measures the latency of each put while a table grows from empty to a few
+ * million entries, with and without incremental resizing. Prints the p50,
+ * p99, p99.999 and max put latency and the number of puts slower than 1ms for
+ * both hash tables in both modes. Run with a large enough heap (eg -Xmx2g) that GC
+ * pauses do not drown out the resize pauses.
+ */
+public class IncrementalResizeBenchmark {
+    private static final int ENTRIES = 4_000_000;
+
+    public static void main(String[] args) {
+        int entries = args.length > 0 ? Integer.parseInt(args[0]) : ENTRIES;
+        Integer[] keys = new Integer[entries];
+        for (int i = 0; i < entries; ++i)
+            keys[i] = i;
+
+        System.out.printf("%-32s %10s %10s %12s %12s %10s%n", "", "p50 ns", "p99 ns", "p99.999 ns", "max ns", "> 1ms");
+        for (boolean incremental : new boolean[] { false, true }) {
+            long[] latencies = new long[entries];
+            HashTableQuadraticProbing<Integer, Integer> quadratic = new HashTableQuadraticProbing<>(8, 0.45,
+                    incremental);
+            for (int i = 0; i < entries; ++i) {
+                long begin = System.nanoTime();
+                quadratic.put(keys[i], keys[i]);
+                latencies[i] = System.nanoTime() - begin;
+            }
+            report("quadratic probing" + (incremental ? " incremental" : ""), latencies);
+
+            HashTableSeparateChaining<Integer, Integer> chaining = new HashTableSeparateChaining<>(3, 0.75,
+                    incremental);
+            for (int i = 0; i < entries; ++i) {
+                long begin = System.nanoTime();
+                chaining.put(keys[i], keys[i]);
+                latencies[i] = System.nanoTime() - begin;
+            }
+            report("separate chaining" + (incremental ? " incremental" : ""), latencies);
+        }
+    }
+
+    private static void report(String name, long[] latencies) {
+        Arrays.sort(latencies);
+        int n = latencies.length, slow = 0;
+        while (slow < n && latencies[n - 1 - slow] > 1_000_000)
+            ++slow;
+        System.out.printf("%-32s %10d %10d %12d %12d %10d%n", name, latencies[n / 2], latencies[(int) (n * 0.99)],
+                latencies[(int) (n * 0.99999)], latencies[n - 1], slow);
+    }
+}
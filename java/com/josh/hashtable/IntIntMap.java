@@ -0,0 +1,297 @@
+package com.josh.hashtable;
+
+import java.util.Arrays;
+
+/**
+ * An int to int hash table using the same quadratic probing scheme as
+ * {@link HashTableQuadraticProbing}, with keys and values kept in primitive
+ * arrays so that put and get never box or allocate.
+ *
+ * Free and deleted buckets are marked with two reserved key values instead of
+ * a TOMBSTONE object. Those two keys are still usable: they are stored
+ * in fields next to the table.
+ */
+public class IntIntMap {
+    /** Key value that marks a bucket that has never been used */
+    private static final int FREE = 0;
+    /** Key value that marks a bucket whose entry was removed */
+    private static final int REMOVED = Integer.MIN_VALUE;
+
+    private final static int DEFAULT_CAPACITY = 8;
+    private final static double DEFAULT_LOAD_FACTOR = 0.45;
+
+    /** items in table / maximum size of table */
+    private final double loadFactor;
+    private int capacity, mask;
+    /** loadFactor * capacity */
+    private int threshold;
+    /** Number of buckets holding either a key or a REMOVED marker */
+    private int usedBuckets = 0;
+    /** Number of keys in the table arrays, excluding FREE and REMOVED keys */
+    private int keyCount = 0;
+
+    private int[] keyTable;
+    private int[] valueTable;
+
+    /** The FREE and REMOVED keys cannot live in the table, so they live here */
+    private boolean hasFreeKey, hasRemovedKey;
+    private int freeKeyValue, removedKeyValue;
+
+    /** Returned by get and remove when the key is not present */
+    private final int noEntryValue;
+
+    public IntIntMap() {
+        this(DEFAULT_CAPACITY, DEFAULT_LOAD_FACTOR, 0);
+    }
+
+    public IntIntMap(int capacity) {
+        this(capacity, DEFAULT_LOAD_FACTOR, 0);
+    }
+
+    public IntIntMap(int capacity, double loadFactor, int noEntryValue) {
+        if (capacity <= 0)
+            throw new IllegalArgumentException("Invalid capacity: " + capacity);
+        if (loadFactor <= 0 || loadFactor >= 1 || Double.isNaN(loadFactor))
+            throw new IllegalArgumentException("Invalid load factor: " + loadFactor);
+
+        this.loadFactor = loadFactor;
+        this.noEntryValue = noEntryValue;
+        allocate(Math.max(DEFAULT_CAPACITY, next2Power((int) Math.ceil(capacity / loadFactor))));
+    }
+
+    /** Find the closest power of 2 at or above n */
+    private static int next2Power(int n) {
+        int power = Integer.highestOneBit(n);
+        return power == n ? n : power << 1;
+    }
+
+    /** Quadratic probing function P(x)=(x^2+x)/2 */
+    private static int P(int n) {
+        return (n * n + n) >> 1;
+    }
+
+    /** Spread the key's bits so that sequential keys do not cluster */
+    private int hashIndex(int key) {
+        int h = key * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & mask;
+    }
+
+    private void allocate(int capacity) {
+        this.capacity = capacity;
+        mask = capacity - 1;
+        threshold = (int) (loadFactor * capacity);
+        keyTable = new int[capacity];
+        valueTable = new int[capacity];
+        usedBuckets = 0;
+    }
+
+    public int size() {
+        return keyCount + (hasFreeKey ? 1 : 0) + (hasRemovedKey ? 1 : 0);
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    public int noEntryValue() {
+        return noEntryValue;
+    }
+
+    /** Empties the hash table */
+    public void clear() {
+        Arrays.fill(keyTable, FREE);
+        keyCount = usedBuckets = 0;
+        hasFreeKey = hasRemovedKey = false;
+    }
+
+    /** Bucket holding key, or -1 if key is not in the table arrays */
+    private int indexOf(int key) {
+        int hash = hashIndex(key), index = hash;
+        for (int probe = 1; keyTable[index] != FREE; ++probe) {
+            if (keyTable[index] == key)
+                return index;
+            index = (hash + P(probe)) & mask;
+        }
+        return -1;
+    }
+
+    public boolean containsKey(int key) {
+        if (key == FREE)
+            return hasFreeKey;
+        if (key == REMOVED)
+            return hasRemovedKey;
+        return indexOf(key) != -1;
+    }
+
+    public int get(int key) {
+        if (key == FREE)
+            return hasFreeKey ? freeKeyValue : noEntryValue;
+        if (key == REMOVED)
+            return hasRemovedKey ? removedKeyValue : noEntryValue;
+        int index = indexOf(key);
+        return index == -1 ? noEntryValue : valueTable[index];
+    }
+
+    /**
+     * Inserts a key, value pair into the hash table or updates value if key already
+     * exists. Returns the previous value, or noEntryValue if there was none
+     */
+    public int put(int key, int value) {
+        if (key == FREE) {
+            int oldValue = hasFreeKey ? freeKeyValue : noEntryValue;
+            hasFreeKey = true;
+            freeKeyValue = value;
+            return oldValue;
+        }
+        if (key == REMOVED) {
+            int oldValue = hasRemovedKey ? removedKeyValue : noEntryValue;
+            hasRemovedKey = true;
+            removedKeyValue = value;
+            return oldValue;
+        }
+
+        int index = insertionIndex(key);
+        if (index < 0) {
+            index = -index - 1;
+            int oldValue = valueTable[index];
+            valueTable[index] = value;
+            return oldValue;
+        }
+        keyTable[index] = key;
+        valueTable[index] = value;
+        ++keyCount;
+        return noEntryValue;
+    }
+
+    /**
+     * Adds delta to the value mapped to key, treating a missing key as
+     * noEntryValue. Returns the new value
+     */
+    public int addTo(int key, int delta) {
+        if (key == FREE || key == REMOVED) {
+            int value = get(key) + delta;
+            put(key, value);
+            return value;
+        }
+
+        int index = insertionIndex(key);
+        if (index < 0)
+            return valueTable[-index - 1] += delta;
+        keyTable[index] = key;
+        valueTable[index] = noEntryValue + delta;
+        ++keyCount;
+        return valueTable[index];
+    }
+
+    /**
+     * Finds where key lives or should go. Returns -(index + 1) if key is already
+     * in the table, otherwise the free or removed bucket to reuse, with
+     * usedBuckets already accounted for
+     */
+    private int insertionIndex(int key) {
+        if (usedBuckets >= threshold)
+            resizeTable();
+
+        int hash = hashIndex(key), index = hash, removedIndex = -1;
+        for (int probe = 1;; ++probe) {
+            int current = keyTable[index];
+            if (current == FREE)
+                break;
+            if (current == key)
+                return -index - 1;
+            if (current == REMOVED && removedIndex == -1)
+                removedIndex = index;
+            index = (hash + P(probe)) & mask;
+        }
+
+        if (removedIndex != -1)
+            return removedIndex;
+        ++usedBuckets;
+        return index;
+    }
+
+    public int remove(int key) {
+        if (key == FREE) {
+            int oldValue = hasFreeKey ? freeKeyValue : noEntryValue;
+            hasFreeKey = false;
+            return oldValue;
+        }
+        if (key == REMOVED) {
+            int oldValue = hasRemovedKey ? removedKeyValue : noEntryValue;
+            hasRemovedKey = false;
+            return oldValue;
+        }
+
+        int index = indexOf(key);
+        if (index == -1)
+            return noEntryValue;
+        keyTable[index] = REMOVED;
+        --keyCount;
+        return valueTable[index];
+    }
+
+    /**
+     * Grows the table, or rehashes it at the same size if most used buckets are
+     * only REMOVED markers
+     */
+    private void resizeTable() {
+        int[] oldKeys = keyTable, oldValues = valueTable;
+        allocate(keyCount >= threshold / 2 ? capacity * 2 : capacity);
+
+        for (int i = 0; i < oldKeys.length; ++i) {
+            int key = oldKeys[i];
+            if (key == FREE || key == REMOVED)
+                continue;
+            int hash = hashIndex(key), index = hash;
+            for (int probe = 1; keyTable[index] != FREE; ++probe)
+                index = (hash + P(probe)) & mask;
+            keyTable[index] = key;
+            valueTable[index] = oldValues[i];
+            ++usedBuckets;
+        }
+    }
+
+    public int[] keys() {
+        int[] keys = new int[size()];
+        int count = 0;
+        if (hasFreeKey)
+            keys[count++] = FREE;
+        if (hasRemovedKey)
+            keys[count++] = REMOVED;
+        for (int key : keyTable) {
+            if (key != FREE && key != REMOVED)
+                keys[count++] = key;
+        }
+        return keys;
+    }
+
+    public int[] values() {
+        int[] values = new int[size()];
+        int count = 0;
+        if (hasFreeKey)
+            values[count++] = freeKeyValue;
+        if (hasRemovedKey)
+            values[count++] = removedKeyValue;
+        for (int i = 0; i < capacity; ++i) {
+            if (keyTable[i] != FREE && keyTable[i] != REMOVED)
+                values[count++] = valueTable[i];
+        }
+        return values;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("{");
+        if (hasFreeKey)
+            sb.append(FREE + " => " + freeKeyValue + ",");
+        if (hasRemovedKey)
+            sb.append(REMOVED + " => " + removedKeyValue + ",");
+        for (int i = 0; i < capacity; ++i) {
+            if (keyTable[i] != FREE && keyTable[i] != REMOVED)
+                sb.append(keyTable[i] + " => " + valueTable[i] + ",");
+        }
+        sb.append("}");
+        return sb.toString();
+    }
+}
@@ -0,0 +1,221 @@
+package com.josh.hashtable;
+
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+
+/**
+ * The keys of a linear probing hash table, shared by
+ * {@link HashSetLinearProbing} and {@link HashMultisetLinearProbing}. There
+ * is no value table. A subclass that keeps data per key does so in arrays
+ * parallel to the key table, and follows its keys around through
+ * {@link #moved} and {@link #rehashed}.
+ *
+ * remove uses backward shift deletion like {@link HashTableRobinHood}, so no
+ * TOMBSTONE is ever left behind.
+ */
+@SuppressWarnings("unchecked")
+abstract class LinearProbingKeys<E> implements Iterable<E> {
+    static final int DEFAULT_CAPACITY = 8;
+    static final double DEFAULT_LOAD_FACTOR = 0.5;
+
+    /** items in table / maximum size of table */
+    final double loadFactor;
+    int capacity, mask, modificationCount = 0;
+    /** loadFactor * capacity */
+    int threshold;
+    /** Number of unique keys inside hash table */
+    int keyCount = 0;
+
+    E[] keyTable;
+    /** Spread hash of the key in each bucket */
+    int[] hashTable;
+
+    LinearProbingKeys(int capacity, double loadFactor) {
+        if (capacity < 0)
+            throw new IllegalArgumentException("Invalid capacity: " + capacity);
+        if (loadFactor <= 0 || loadFactor >= 1 || Double.isNaN(loadFactor))
+            throw new IllegalArgumentException("Invalid load factor: " + loadFactor);
+
+        this.loadFactor = loadFactor;
+        allocate(Math.max(DEFAULT_CAPACITY, next2Power((int) Math.ceil(capacity / loadFactor) + 1)));
+    }
+
+    /** Find the closest power of 2 at or above n */
+    private static int next2Power(int n) {
+        int power = Integer.highestOneBit(n);
+        return power == n ? n : power << 1;
+    }
+
+    static int hash(Object key) {
+        if (key == null)
+            throw new IllegalArgumentException("Null key");
+        return Hashing.spread(key.hashCode());
+    }
+
+    private void allocate(int capacity) {
+        this.capacity = capacity;
+        mask = capacity - 1;
+        threshold = (int) (loadFactor * capacity);
+        keyTable = (E[]) new Object[capacity];
+        hashTable = new int[capacity];
+    }
+
+    public int size() {
+        return keyCount;
+    }
+
+    public boolean isEmpty() {
+        return keyCount == 0;
+    }
+
+    /** Empties the hash table */
+    public void clear() {
+        Arrays.fill(keyTable, null);
+        keyCount = 0;
+        ++modificationCount;
+    }
+
+    /** Bucket holding key, or -1 if it is not in the table */
+    int indexOf(Object key, int hash) {
+        for (int index = hash & mask; keyTable[index] != null; index = (index + 1) & mask) {
+            if (hashTable[index] == hash && keyTable[index].equals(key))
+                return index;
+        }
+        return -1;
+    }
+
+    /**
+     * Bucket holding key, inserting key if it is not there yet. A newly inserted
+     * key's bucket is returned as ~index, which is negative
+     */
+    int insert(E key, int hash) {
+        int index = hash & mask;
+        for (; keyTable[index] != null; index = (index + 1) & mask) {
+            if (hashTable[index] == hash && keyTable[index].equals(key))
+                return index;
+        }
+
+        if (keyCount >= threshold) {
+            resizeTable(capacity * 2);
+            index = freeBucket(hash);
+        }
+        keyTable[index] = key;
+        hashTable[index] = hash;
+        ++keyCount;
+        ++modificationCount;
+        return ~index;
+    }
+
+    private int freeBucket(int hash) {
+        int index = hash & mask;
+        while (keyTable[index] != null)
+            index = (index + 1) & mask;
+        return index;
+    }
+
+    /**
+     * Removes the key in the bucket. The keys after it that would be closer to
+     * home one bucket back are moved back, until an empty bucket is reached
+     */
+    void removeAt(int index) {
+        for (int next = (index + 1) & mask; keyTable[next] != null; next = (next + 1) & mask) {
+            // the key at next can fill the gap unless its home lies between
+            // the gap and next
+            int home = hashTable[next] & mask;
+            if (((next - home) & mask) >= ((next - index) & mask)) {
+                keyTable[index] = keyTable[next];
+                hashTable[index] = hashTable[next];
+                moved(next, index);
+                index = next;
+            }
+        }
+        keyTable[index] = null;
+        --keyCount;
+        ++modificationCount;
+    }
+
+    /**
+     * Makes this table a copy of other's keys at other's capacity, without
+     * rehashing. A subclass copies its own per key arrays after this
+     */
+    void copyKeysOf(LinearProbingKeys<? extends E> other) {
+        capacity = other.capacity;
+        mask = other.mask;
+        threshold = (int) (loadFactor * capacity);
+        keyTable = (E[]) other.keyTable.clone();
+        hashTable = other.hashTable.clone();
+        keyCount = other.keyCount;
+        ++modificationCount;
+    }
+
+    /** Grows the table once, up front, so that keys keys fit without a resize */
+    void ensureCapacity(int keys) {
+        int newCapacity = capacity;
+        while ((int) (loadFactor * newCapacity) < keys && newCapacity < 1 << 30)
+            newCapacity *= 2;
+        if (newCapacity != capacity)
+            resizeTable(newCapacity);
+    }
+
+    private void resizeTable(int newCapacity) {
+        E[] oldKeys = keyTable;
+        int[] oldHashes = hashTable;
+        allocate(newCapacity);
+
+        int[] newIndices = new int[oldKeys.length];
+        for (int i = 0; i < oldKeys.length; ++i) {
+            if (oldKeys[i] == null) {
+                newIndices[i] = -1;
+                continue;
+            }
+            int index = freeBucket(oldHashes[i]);
+            keyTable[index] = oldKeys[i];
+            hashTable[index] = oldHashes[i];
+            newIndices[i] = index;
+        }
+        rehashed(newIndices);
+    }
+
+    /** Called when the key in bucket from has been moved to bucket to */
+    void moved(int from, int to) {
+    }
+
+    /**
+     * Called after the table has grown. The key that was in old bucket i is now
+     * in bucket newIndices[i], or newIndices[i] is -1 if bucket i was empty
+     */
+    void rehashed(int[] newIndices) {
+    }
+
+    @Override
+    public Iterator<E> iterator() {
+        // for ensuring that the hash table is not modified while we are
+        // iterating it
+        final int MODIFICATION_COUNT = modificationCount;
+
+        return new Iterator<E>() {
+            int keysLeft = keyCount, index = 0;
+
+            @Override
+            public boolean hasNext() {
+                if (MODIFICATION_COUNT != modificationCount)
+                    throw new ConcurrentModificationException();
+                return keysLeft != 0;
+            }
+
+            @Override
+            public E next() {
+                while (keyTable[index] == null)
+                    ++index;
+                --keysLeft;
+                return keyTable[index++];
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+}
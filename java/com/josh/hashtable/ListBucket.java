@@ -0,0 +1,21 @@
+package com.josh.hashtable;
+
+/** A bucket that is searched linearly */
+class ListBucket<K, V> extends Bucket<K, V> {
+    ListBucket() {
+    }
+
+    ListBucket(Bucket<K, V> other) {
+        super(other);
+    }
+
+    /** Only calls equals on entries with the same hash */
+    @Override
+    Entry<K, V> seek(K key, int hash) {
+        for (Entry<K, V> entry = head; entry != null; entry = entry.next) {
+            if (entry.hash == hash && entry.key.equals(key))
+                return entry;
+        }
+        return null;
+    }
+}
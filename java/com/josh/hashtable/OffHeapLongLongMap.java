@@ -0,0 +1,513 @@
+package com.josh.hashtable;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A long to long hash table kept outside the Java heap. It uses the same
+ * quadratic probing and reserved FREE and REMOVED keys as {@link LongLongMap}.
+ *
+ * Buckets are 16 bytes (key then value) in direct ByteBuffers, or in a memory
+ * mapped file when built with {@link #create} or {@link #open}. The garbage
+ * collector never scans the table, however big it gets. One buffer can only
+ * address 2GB, so the table is split into segments of up to 2^26 buckets.
+ *
+ * A file starts with a small header holding the capacity, counts and the
+ * FREE/REMOVED keys' values, followed by the buckets. Bucket writes go
+ * straight to the mapping. The header is written by {@link #flush} and
+ * {@link #close}, so a file is only consistent after one of those. Growing a
+ * file backed table rehashes into a new file next to it, which then replaces
+ * the old one.
+ */
+public class OffHeapLongLongMap implements Closeable {
+    /** Key value that marks a bucket that has never been used */
+    private static final long FREE = 0;
+    /** Key value that marks a bucket whose entry was removed */
+    private static final long REMOVED = Long.MIN_VALUE;
+
+    private final static int DEFAULT_CAPACITY = 8;
+    private final static double DEFAULT_LOAD_FACTOR = 0.45;
+    private final static int MAX_CAPACITY = 1 << 30;
+
+    /** A bucket is a key and a value, 2^4 bytes */
+    private final static int BUCKET_SHIFT = 4;
+    private final static int SEGMENT_SHIFT = 26;
+    private final static int SEGMENT_MASK = (1 << SEGMENT_SHIFT) - 1;
+
+    private final static long MAGIC = 0x4C4F4E474D415031L;
+    private final static int HEADER_SIZE = 64;
+
+    /** items in table / maximum size of table */
+    private final double loadFactor;
+    private int capacity, mask;
+    /** loadFactor * capacity */
+    private int threshold;
+    /** Number of buckets holding either a key or a REMOVED marker */
+    private int usedBuckets = 0;
+    /** Number of keys in the buckets, excluding FREE and REMOVED keys */
+    private int keyCount = 0;
+
+    private ByteBuffer[] segments;
+
+    /** The FREE and REMOVED keys cannot live in the table, so they live here */
+    private boolean hasFreeKey, hasRemovedKey;
+    private long freeKeyValue, removedKeyValue;
+
+    /** Returned by get and remove when the key is not present */
+    private final long noEntryValue;
+
+    /** Backing file, or null for a table in direct buffers */
+    private final Path file;
+    private MappedByteBuffer header;
+
+    public OffHeapLongLongMap() {
+        this(DEFAULT_CAPACITY, DEFAULT_LOAD_FACTOR, 0);
+    }
+
+    public OffHeapLongLongMap(int capacity) {
+        this(capacity, DEFAULT_LOAD_FACTOR, 0);
+    }
+
+    /** A table in direct buffers, freed once the map is no longer reachable */
+    public OffHeapLongLongMap(int capacity, double loadFactor, long noEntryValue) {
+        this.file = null;
+        this.loadFactor = checkLoadFactor(loadFactor);
+        this.noEntryValue = noEntryValue;
+        try {
+            allocate(null, initialCapacity(capacity, loadFactor));
+        } catch (IOException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    private OffHeapLongLongMap(Path file, double loadFactor, long noEntryValue) {
+        this.file = file;
+        this.loadFactor = loadFactor;
+        this.noEntryValue = noEntryValue;
+    }
+
+    /** Creates a new file backed table, replacing the file if it exists */
+    public static OffHeapLongLongMap create(Path file, int capacity, double loadFactor, long noEntryValue)
+            throws IOException {
+        OffHeapLongLongMap map = new OffHeapLongLongMap(file, checkLoadFactor(loadFactor), noEntryValue);
+        Files.deleteIfExists(file);
+        map.allocate(file, initialCapacity(capacity, loadFactor));
+        map.writeHeader();
+        return map;
+    }
+
+    /** Opens a table written by a file backed map that was flushed or closed */
+    public static OffHeapLongLongMap open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            if (channel.size() < HEADER_SIZE)
+                throw new IOException("Not an off-heap map file: " + file);
+            MappedByteBuffer header = channel.map(MapMode.READ_WRITE, 0, HEADER_SIZE);
+            header.order(ByteOrder.LITTLE_ENDIAN);
+            if (header.getLong(0) != MAGIC)
+                throw new IOException("Not an off-heap map file: " + file);
+
+            OffHeapLongLongMap map = new OffHeapLongLongMap(file, header.getDouble(48), header.getLong(40));
+            map.header = header;
+            map.setCapacity(header.getInt(8));
+            if (channel.size() < HEADER_SIZE + ((long) map.capacity << BUCKET_SHIFT))
+                throw new IOException("Truncated off-heap map file: " + file);
+            map.segments = map.mapSegments(channel);
+            map.keyCount = header.getInt(12);
+            map.usedBuckets = header.getInt(16);
+            int flags = header.getInt(20);
+            map.hasFreeKey = (flags & 1) != 0;
+            map.hasRemovedKey = (flags & 2) != 0;
+            map.freeKeyValue = header.getLong(24);
+            map.removedKeyValue = header.getLong(32);
+            return map;
+        }
+    }
+
+    private static double checkLoadFactor(double loadFactor) {
+        if (loadFactor <= 0 || loadFactor >= 1 || Double.isNaN(loadFactor))
+            throw new IllegalArgumentException("Invalid load factor: " + loadFactor);
+        return loadFactor;
+    }
+
+    private static int initialCapacity(int capacity, double loadFactor) {
+        if (capacity <= 0)
+            throw new IllegalArgumentException("Invalid capacity: " + capacity);
+        long buckets = (long) Math.ceil(capacity / loadFactor);
+        if (buckets > MAX_CAPACITY)
+            throw new IllegalArgumentException("Capacity too large: " + capacity);
+        return Math.max(DEFAULT_CAPACITY, next2Power((int) buckets));
+    }
+
+    /** Find the closest power of 2 at or above n */
+    private static int next2Power(int n) {
+        int power = Integer.highestOneBit(n);
+        return power == n ? n : power << 1;
+    }
+
+    /** Quadratic probing function P(x)=(x^2+x)/2 */
+    private static int P(int n) {
+        return (n * n + n) >> 1;
+    }
+
+    /** Spread the key's bits so that sequential keys do not cluster */
+    private int hashIndex(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+
+    private void setCapacity(int capacity) {
+        this.capacity = capacity;
+        mask = capacity - 1;
+        threshold = (int) (loadFactor * capacity);
+    }
+
+    /**
+     * Replaces the buckets with empty ones, in direct buffers when path is null
+     * and otherwise mapped from a new file at path. Zeroed memory is all FREE
+     * keys
+     */
+    private void allocate(Path path, int capacity) throws IOException {
+        setCapacity(capacity);
+        usedBuckets = 0;
+        if (path == null) {
+            segments = new ByteBuffer[segmentCount()];
+            for (int i = 0; i < segments.length; ++i)
+                segments[i] = ByteBuffer.allocateDirect(segmentBytes()).order(ByteOrder.LITTLE_ENDIAN);
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            header = channel.map(MapMode.READ_WRITE, 0, HEADER_SIZE);
+            header.order(ByteOrder.LITTLE_ENDIAN);
+            segments = mapSegments(channel);
+        }
+    }
+
+    private int segmentCount() {
+        return Math.max(1, capacity >>> SEGMENT_SHIFT);
+    }
+
+    private int segmentBytes() {
+        return Math.min(capacity, 1 << SEGMENT_SHIFT) << BUCKET_SHIFT;
+    }
+
+    private ByteBuffer[] mapSegments(FileChannel channel) throws IOException {
+        ByteBuffer[] segments = new ByteBuffer[segmentCount()];
+        long position = HEADER_SIZE;
+        for (int i = 0; i < segments.length; ++i) {
+            segments[i] = channel.map(MapMode.READ_WRITE, position, segmentBytes()).order(ByteOrder.LITTLE_ENDIAN);
+            position += segmentBytes();
+        }
+        return segments;
+    }
+
+    private long keyAt(int bucket) {
+        return segments[bucket >>> SEGMENT_SHIFT].getLong((bucket & SEGMENT_MASK) << BUCKET_SHIFT);
+    }
+
+    private long valueAt(int bucket) {
+        return segments[bucket >>> SEGMENT_SHIFT].getLong(((bucket & SEGMENT_MASK) << BUCKET_SHIFT) + 8);
+    }
+
+    private void setKey(int bucket, long key) {
+        segments[bucket >>> SEGMENT_SHIFT].putLong((bucket & SEGMENT_MASK) << BUCKET_SHIFT, key);
+    }
+
+    private void setValue(int bucket, long value) {
+        segments[bucket >>> SEGMENT_SHIFT].putLong(((bucket & SEGMENT_MASK) << BUCKET_SHIFT) + 8, value);
+    }
+
+    public int size() {
+        return keyCount + (hasFreeKey ? 1 : 0) + (hasRemovedKey ? 1 : 0);
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    public long noEntryValue() {
+        return noEntryValue;
+    }
+
+    /** Number of buckets */
+    public int capacity() {
+        return capacity;
+    }
+
+    /** Empties the hash table */
+    public void clear() {
+        for (int i = 0; i < capacity; ++i)
+            setKey(i, FREE);
+        keyCount = usedBuckets = 0;
+        hasFreeKey = hasRemovedKey = false;
+    }
+
+    /** Bucket holding key, or -1 if key is not in the table */
+    private int indexOf(long key) {
+        int hash = hashIndex(key), index = hash;
+        for (int probe = 1;; ++probe) {
+            long current = keyAt(index);
+            if (current == FREE)
+                return -1;
+            if (current == key)
+                return index;
+            index = (hash + P(probe)) & mask;
+        }
+    }
+
+    public boolean containsKey(long key) {
+        if (key == FREE)
+            return hasFreeKey;
+        if (key == REMOVED)
+            return hasRemovedKey;
+        return indexOf(key) != -1;
+    }
+
+    public long get(long key) {
+        if (key == FREE)
+            return hasFreeKey ? freeKeyValue : noEntryValue;
+        if (key == REMOVED)
+            return hasRemovedKey ? removedKeyValue : noEntryValue;
+        int index = indexOf(key);
+        return index == -1 ? noEntryValue : valueAt(index);
+    }
+
+    /**
+     * Inserts a key, value pair into the hash table or updates value if key already
+     * exists. Returns the previous value, or noEntryValue if there was none
+     */
+    public long put(long key, long value) {
+        if (key == FREE) {
+            long oldValue = hasFreeKey ? freeKeyValue : noEntryValue;
+            hasFreeKey = true;
+            freeKeyValue = value;
+            return oldValue;
+        }
+        if (key == REMOVED) {
+            long oldValue = hasRemovedKey ? removedKeyValue : noEntryValue;
+            hasRemovedKey = true;
+            removedKeyValue = value;
+            return oldValue;
+        }
+
+        int index = insertionIndex(key);
+        if (index < 0) {
+            index = -index - 1;
+            long oldValue = valueAt(index);
+            setValue(index, value);
+            return oldValue;
+        }
+        setKey(index, key);
+        setValue(index, value);
+        ++keyCount;
+        return noEntryValue;
+    }
+
+    /**
+     * Adds delta to the value mapped to key, treating a missing key as
+     * noEntryValue. Returns the new value
+     */
+    public long addTo(long key, long delta) {
+        if (key == FREE || key == REMOVED) {
+            long value = get(key) + delta;
+            put(key, value);
+            return value;
+        }
+
+        int index = insertionIndex(key);
+        long value;
+        if (index < 0) {
+            index = -index - 1;
+            value = valueAt(index) + delta;
+        } else {
+            setKey(index, key);
+            value = noEntryValue + delta;
+            ++keyCount;
+        }
+        setValue(index, value);
+        return value;
+    }
+
+    /**
+     * Finds where key lives or should go. Returns -(index + 1) if key is already
+     * in the table, otherwise the free or removed bucket to reuse, with
+     * usedBuckets already accounted for
+     */
+    private int insertionIndex(long key) {
+        if (usedBuckets >= threshold)
+            resizeTable();
+
+        int hash = hashIndex(key), index = hash, removedIndex = -1;
+        for (int probe = 1;; ++probe) {
+            long current = keyAt(index);
+            if (current == FREE)
+                break;
+            if (current == key)
+                return -index - 1;
+            if (current == REMOVED && removedIndex == -1)
+                removedIndex = index;
+            index = (hash + P(probe)) & mask;
+        }
+
+        if (removedIndex != -1)
+            return removedIndex;
+        ++usedBuckets;
+        return index;
+    }
+
+    public long remove(long key) {
+        if (key == FREE) {
+            long oldValue = hasFreeKey ? freeKeyValue : noEntryValue;
+            hasFreeKey = false;
+            return oldValue;
+        }
+        if (key == REMOVED) {
+            long oldValue = hasRemovedKey ? removedKeyValue : noEntryValue;
+            hasRemovedKey = false;
+            return oldValue;
+        }
+
+        int index = indexOf(key);
+        if (index == -1)
+            return noEntryValue;
+        setKey(index, REMOVED);
+        --keyCount;
+        return valueAt(index);
+    }
+
+    /**
+     * Grows the table, or rehashes it at the same size if most used buckets are
+     * only REMOVED markers
+     */
+    private void resizeTable() {
+        int newCapacity = keyCount >= threshold / 2 ? capacity * 2 : capacity;
+        if (newCapacity > MAX_CAPACITY)
+            throw new IllegalStateException("Off-heap map is full");
+
+        ByteBuffer[] oldSegments = segments;
+        int oldCapacity = capacity;
+        Path resized = file == null ? null : file.resolveSibling(file.getFileName() + ".resize");
+        try {
+            if (resized != null)
+                Files.deleteIfExists(resized);
+            allocate(resized, newCapacity);
+
+            for (int i = 0; i < oldCapacity; ++i) {
+                ByteBuffer segment = oldSegments[i >>> SEGMENT_SHIFT];
+                int offset = (i & SEGMENT_MASK) << BUCKET_SHIFT;
+                long key = segment.getLong(offset);
+                if (key == FREE || key == REMOVED)
+                    continue;
+                int hash = hashIndex(key), index = hash;
+                for (int probe = 1; keyAt(index) != FREE; ++probe)
+                    index = (hash + P(probe)) & mask;
+                setKey(index, key);
+                setValue(index, segment.getLong(offset + 8));
+                ++usedBuckets;
+            }
+
+            if (resized != null) {
+                writeHeader();
+                force();
+                Files.move(resized, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not resize " + file, e);
+        }
+    }
+
+    private void writeHeader() {
+        header.putLong(0, MAGIC);
+        header.putInt(8, capacity);
+        header.putInt(12, keyCount);
+        header.putInt(16, usedBuckets);
+        header.putInt(20, (hasFreeKey ? 1 : 0) | (hasRemovedKey ? 2 : 0));
+        header.putLong(24, freeKeyValue);
+        header.putLong(32, removedKeyValue);
+        header.putLong(40, noEntryValue);
+        header.putDouble(48, loadFactor);
+    }
+
+    private void force() {
+        header.force();
+        for (ByteBuffer segment : segments)
+            ((MappedByteBuffer) segment).force();
+    }
+
+    /** Writes the header and forces a file backed table to disk */
+    public void flush() {
+        if (file == null)
+            return;
+        writeHeader();
+        force();
+    }
+
+    /**
+     * Flushes a file backed table and lets go of the buffers. The map cannot be
+     * used afterwards
+     */
+    @Override
+    public void close() {
+        if (segments == null)
+            return;
+        flush();
+        segments = null;
+        header = null;
+    }
+
+    public long[] keys() {
+        long[] keys = new long[size()];
+        int count = 0;
+        if (hasFreeKey)
+            keys[count++] = FREE;
+        if (hasRemovedKey)
+            keys[count++] = REMOVED;
+        for (int i = 0; i < capacity; ++i) {
+            long key = keyAt(i);
+            if (key != FREE && key != REMOVED)
+                keys[count++] = key;
+        }
+        return keys;
+    }
+
+    public long[] values() {
+        long[] values = new long[size()];
+        int count = 0;
+        if (hasFreeKey)
+            values[count++] = freeKeyValue;
+        if (hasRemovedKey)
+            values[count++] = removedKeyValue;
+        for (int i = 0; i < capacity; ++i) {
+            long key = keyAt(i);
+            if (key != FREE && key != REMOVED)
+                values[count++] = valueAt(i);
+        }
+        return values;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("{");
+        if (hasFreeKey)
+            sb.append(FREE + " => " + freeKeyValue + ",");
+        if (hasRemovedKey)
+            sb.append(REMOVED + " => " + removedKeyValue + ",");
+        for (int i = 0; i < capacity; ++i) {
+            long key = keyAt(i);
+            if (key != FREE && key != REMOVED)
+                sb.append(key + " => " + valueAt(i) + ",");
+        }
+        sb.append("}");
+        return sb.toString();
+    }
+}
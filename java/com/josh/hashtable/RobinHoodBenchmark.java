@@ -0,0 +1,86 @@
+package com.josh.hashtable;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Compares {@link HashTableRobinHood} against
+ * {@link HashTableQuadraticProbing} under insert/remove churn: the table is
+ * filled to a steady size, then every round removes one random live key and
+ * inserts a fresh one. Prints churn and lookup throughput, plus the Robin Hood
+ * table's probe length statistics once the churn has finished.
+ */
+public class RobinHoodBenchmark {
+    private static final int LIVE_KEYS = 100_000;
+    private static final int ROUNDS = 2_000_000;
+
+    public static void main(String[] args) {
+        int liveKeys = args.length > 0 ? Integer.parseInt(args[0]) : LIVE_KEYS;
+
+        // warm up once, then measure
+        runQuadratic(liveKeys, false);
+        runRobinHood(liveKeys, false);
+        System.out.printf("%-10s %16s %16s%n", "", "churn ops/ms", "lookups/ms");
+        runQuadratic(liveKeys, true);
+        runRobinHood(liveKeys, true);
+    }
+
+    private static void runQuadratic(int liveKeys, boolean print) {
+        HashTableQuadraticProbing<Integer, Integer> table = new HashTableQuadraticProbing<>();
+        Integer[] live = new Integer[liveKeys];
+        Random random = new Random(1);
+        for (int i = 0; i < liveKeys; ++i)
+            table.put(live[i] = random.nextInt(), i);
+
+        long begin = System.nanoTime();
+        for (int round = 0; round < ROUNDS; ++round) {
+            int slot = random.nextInt(liveKeys);
+            table.remove(live[slot]);
+            table.put(live[slot] = random.nextInt(), round);
+        }
+        long churned = System.nanoTime();
+        long found = 0;
+        for (int round = 0; round < ROUNDS; ++round) {
+            if (table.get(live[random.nextInt(liveKeys)]) != null)
+                ++found;
+        }
+        long end = System.nanoTime();
+
+        if (print)
+            report("quadratic", churned - begin, end - churned, found);
+    }
+
+    private static void runRobinHood(int liveKeys, boolean print) {
+        HashTableRobinHood<Integer, Integer> table = new HashTableRobinHood<>();
+        Integer[] live = new Integer[liveKeys];
+        Random random = new Random(1);
+        for (int i = 0; i < liveKeys; ++i)
+            table.put(live[i] = random.nextInt(), i);
+
+        long begin = System.nanoTime();
+        for (int round = 0; round < ROUNDS; ++round) {
+            int slot = random.nextInt(liveKeys);
+            table.remove(live[slot]);
+            table.put(live[slot] = random.nextInt(), round);
+        }
+        long churned = System.nanoTime();
+        long found = 0;
+        for (int round = 0; round < ROUNDS; ++round) {
+            if (table.get(live[random.nextInt(liveKeys)]) != null)
+                ++found;
+        }
+        long end = System.nanoTime();
+
+        if (print) {
+            report("robin hood", churned - begin, end - churned, found);
+            System.out.printf("robin hood probe lengths: max=%d avg=%.3f histogram=%s%n", table.maxProbeLength(),
+                    table.averageProbeLength(), Arrays.toString(table.probeLengthHistogram()));
+        }
+    }
+
+    private static void report(String name, long churnNanos, long lookupNanos, long found) {
+        // two operations per churn round
+        System.out.printf("%-10s %16.0f %16.0f   (found %d)%n", name, 2.0 * ROUNDS / (churnNanos / 1e6),
+                ROUNDS / (lookupNanos / 1e6), found);
+    }
+}
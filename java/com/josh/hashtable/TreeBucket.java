@@ -0,0 +1,200 @@
+package com.josh.hashtable;
+
+/**
+ * A bucket kept as an AVL tree, so a bucket full of colliding keys is searched
+ * in O(log n) instead of O(n). It is balanced the same way as
+ * {@link com.josh.AVLTreeRecursive}.
+ *
+ * Keys need not be Comparable. Entries are ordered by hash first. Entries with
+ * the same hash are ordered by compareTo when both keys are Comparable and of
+ * the same class, then by class name, then by identity hash code. A lookup
+ * only has to search both subtrees of a node when it cannot tell which way to
+ * go by those rules. That only happens for same-class keys with equal hashes
+ * that cannot be compared.
+ *
+ * The entries stay linked in the order they were added, so walking the bucket
+ * does not have to traverse the tree.
+ */
+@SuppressWarnings({ "unchecked", "rawtypes" })
+class TreeBucket<K, V> extends Bucket<K, V> {
+    private class Node {
+        /** Legal balance factor values are -1,0 and 1 only */
+        int balanceFactor = 0;
+        int height = 0;
+        Entry<K, V> entry;
+        Node left = null, right = null;
+
+        Node(Entry<K, V> entry) {
+            this.entry = entry;
+        }
+    }
+
+    private Node root;
+
+    /** Set by remove when the entry was found */
+    private boolean removed;
+
+    TreeBucket(Bucket<K, V> other) {
+        super(other);
+        for (Entry<K, V> entry = head; entry != null; entry = entry.next)
+            root = insert(root, entry);
+    }
+
+    /**
+     * Orders a key against an entry using only what is known without the key's
+     * identity. Returns 0 when the key could be on either side
+     */
+    private static int compareKey(int hash, Object key, Entry<?, ?> entry) {
+        if (hash != entry.hash)
+            return hash < entry.hash ? -1 : 1;
+
+        Object other = entry.key;
+        if (key.getClass() != other.getClass())
+            return key.getClass().getName().compareTo(other.getClass().getName());
+        if (key instanceof Comparable)
+            return Integer.signum(((Comparable) key).compareTo(other));
+        return 0;
+    }
+
+    /** Total order used to place entries. Falls back to identity hash codes */
+    private static int compareEntries(Entry<?, ?> a, Entry<?, ?> b) {
+        int c = compareKey(a.hash, a.key, b);
+        if (c != 0)
+            return c;
+        return Integer.compare(System.identityHashCode(a.key), System.identityHashCode(b.key));
+    }
+
+    @Override
+    Entry<K, V> seek(K key, int hash) {
+        return seek(root, key, hash);
+    }
+
+    private Entry<K, V> seek(Node node, K key, int hash) {
+        while (node != null) {
+            if (node.entry.hash == hash && node.entry.key.equals(key))
+                return node.entry;
+
+            int c = compareKey(hash, key, node.entry);
+            if (c < 0)
+                node = node.left;
+            else if (c > 0)
+                node = node.right;
+            else {
+                // cannot tell which side the key went to, so try both
+                Entry<K, V> found = seek(node.left, key, hash);
+                return found != null ? found : seek(node.right, key, hash);
+            }
+        }
+        return null;
+    }
+
+    @Override
+    void add(Entry<K, V> entry) {
+        super.add(entry);
+        root = insert(root, entry);
+    }
+
+    private Node insert(Node n, Entry<K, V> entry) {
+        if (n == null)
+            return new Node(entry);
+
+        if (compareEntries(entry, n.entry) < 0)
+            n.left = insert(n.left, entry);
+        else
+            n.right = insert(n.right, entry);
+
+        update(n);
+        return balance(n);
+    }
+
+    @Override
+    void remove(Entry<K, V> entry) {
+        removed = false;
+        root = remove(root, entry);
+        super.remove(entry);
+    }
+
+    private Node remove(Node node, Entry<K, V> entry) {
+        if (node == null)
+            return null;
+
+        if (node.entry == entry) {
+            removed = true;
+            // node has only one child or no children at all
+            if (node.right == null)
+                return node.left;
+            if (node.left == null)
+                return node.right;
+
+            // node has two children, take over the smallest entry on the right
+            Node replacement = node.right;
+            while (replacement.left != null)
+                replacement = replacement.left;
+            node.entry = replacement.entry;
+            node.right = removeMin(node.right);
+        } else {
+            int c = compareEntries(entry, node.entry);
+            if (c < 0)
+                node.left = remove(node.left, entry);
+            else if (c > 0)
+                node.right = remove(node.right, entry);
+            else {
+                // identity hash codes collided
+                node.left = remove(node.left, entry);
+                if (!removed)
+                    node.right = remove(node.right, entry);
+            }
+        }
+
+        update(node);
+        return balance(node);
+    }
+
+    private Node removeMin(Node node) {
+        if (node.left == null)
+            return node.right;
+        node.left = removeMin(node.left);
+        update(node);
+        return balance(node);
+    }
+
+    /** Updates the height and balance factor of the node */
+    private void update(Node n) {
+        int leftHeight = n.left == null ? -1 : n.left.height;
+        int rightHeight = n.right == null ? -1 : n.right.height;
+        n.balanceFactor = rightHeight - leftHeight;
+        n.height = 1 + Math.max(leftHeight, rightHeight);
+    }
+
+    /** Provides self balancing functionality */
+    private Node balance(Node n) {
+        if (n.balanceFactor > 1) { // right heavy
+            if (n.right.balanceFactor < 0)
+                n.right = rightRotate(n.right);
+            return leftRotate(n);
+        } else if (n.balanceFactor < -1) { // left heavy
+            if (n.left.balanceFactor > 0)
+                n.left = leftRotate(n.left);
+            return rightRotate(n);
+        }
+        return n;
+    }
+
+    private Node leftRotate(Node node) {
+        Node newParent = node.right;
+        node.right = newParent.left;
+        newParent.left = node;
+        update(node);
+        update(newParent);
+        return newParent;
+    }
+
+    private Node rightRotate(Node node) {
+        Node newParent = node.left;
+        node.left = newParent.right;
+        newParent.right = node;
+        update(node);
+        update(newParent);
+        return newParent;
+    }
+}
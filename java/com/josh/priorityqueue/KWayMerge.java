@@ -0,0 +1,73 @@
+package com.josh.priorityqueue;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Merges K sorted runs into one sorted stream.
+ *
+ * The current head of every run sits in a {@link MinIndexedBinaryHeap} with
+ * the run's position as its key index. Taking the next item reads the minimum
+ * and then updates that key with the next item from the same run. Each item
+ * costs O(log K) and the merge itself allocates nothing per item.
+ *
+ * For runs of primitive longs, see {@link LongLoserTree}
+ */
+public class KWayMerge<T extends Comparable<T>> implements Iterator<T> {
+    private final Iterator<? extends T>[] runs;
+    private final MinIndexedHeap<T> heap;
+
+    /** Run that the item last returned by next() came from */
+    private int lastRun = -1;
+
+    public static void main(String[] args) {
+        KWayMerge<Integer> merge = new KWayMerge<>(Arrays.asList(
+                Arrays.asList(1, 4, 9).iterator(),
+                Arrays.asList(2, 3, 10, 11).iterator(),
+                Arrays.<Integer>asList().iterator(),
+                Arrays.asList(0, 5).iterator()));
+        StringBuilder sb = new StringBuilder();
+        while (merge.hasNext())
+            sb.append(merge.next() + " ");
+        System.out.println(sb);
+    }
+
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    public KWayMerge(List<? extends Iterator<? extends T>> runs) {
+        this.runs = runs.toArray(new Iterator[0]);
+        heap = new MinIndexedBinaryHeap<>(Math.max(1, this.runs.length));
+
+        for (int run = 0; run < this.runs.length; ++run) {
+            if (this.runs[run].hasNext())
+                heap.insert(run, this.runs[run].next());
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        return !heap.isEmpty();
+    }
+
+    @Override
+    public T next() {
+        if (heap.isEmpty())
+            throw new NoSuchElementException();
+
+        int run = heap.peekMinKeyIndex();
+        T value = heap.valueOf(run);
+        if (runs[run].hasNext())
+            heap.update(run, runs[run].next());
+        else
+            heap.delete(run);
+
+        lastRun = run;
+        return value;
+    }
+
+    /** Index of the run that the item last returned by next() came from */
+    public int lastRun() {
+        return lastRun;
+    }
+}
@@ -0,0 +1,112 @@
+package com.josh.priorityqueue;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * Merges K sorted long arrays using a tree of losers.
+ *
+ * Each internal node of the tree remembers the run that lost the match played
+ * there, and node 0 holds the overall winner. After the winner is consumed,
+ * only its path to the root is replayed. That takes exactly log K comparisons,
+ * compared to the roughly 2 log K a heap needs to sift down. Values are read
+ * straight out of the arrays, so nothing is boxed or allocated per item
+ */
+public class LongLoserTree {
+    private final long[][] runs;
+
+    /** Position of the next unread value in each run */
+    private final int[] positions;
+
+    /** tree[0] is the winning run, tree[1..k-1] are the losers of each match */
+    private final int[] tree;
+
+    private final int k;
+
+    public static void main(String[] args) {
+        long[] merged = merge(new long[] { 1, 4, 9 }, new long[] { 2, 3, 10, 11 }, new long[0], new long[] { 0, 5 });
+        System.out.println(Arrays.toString(merged));
+    }
+
+    public LongLoserTree(long[]... runs) {
+        this.runs = runs;
+        k = runs.length;
+        positions = new int[k];
+        tree = new int[Math.max(1, k)];
+
+        if (k > 1) {
+            // play the initial tournament bottom up; leaves are nodes k..2k-1
+            int[] winners = new int[2 * k];
+            for (int i = 0; i < k; ++i)
+                winners[k + i] = i;
+            for (int node = k - 1; node > 0; --node) {
+                int a = winners[2 * node], b = winners[2 * node + 1];
+                if (beats(a, b)) {
+                    winners[node] = a;
+                    tree[node] = b;
+                } else {
+                    winners[node] = b;
+                    tree[node] = a;
+                }
+            }
+            tree[0] = winners[1];
+        }
+    }
+
+    /** Merge the sorted runs into a new sorted array */
+    public static long[] merge(long[]... runs) {
+        int total = 0;
+        for (long[] run : runs)
+            total += run.length;
+
+        long[] merged = new long[total];
+        LongLoserTree tree = new LongLoserTree(runs);
+        for (int i = 0; i < total; ++i)
+            merged[i] = tree.nextLong();
+        return merged;
+    }
+
+    private boolean exhausted(int run) {
+        return positions[run] == runs[run].length;
+    }
+
+    /** Whether run a's current value should come out before run b's */
+    private boolean beats(int a, int b) {
+        if (exhausted(a))
+            return false;
+        if (exhausted(b))
+            return true;
+        long valueA = runs[a][positions[a]], valueB = runs[b][positions[b]];
+        return valueA < valueB || (valueA == valueB && a < b);
+    }
+
+    public boolean hasNext() {
+        return k > 0 && !exhausted(tree[0]);
+    }
+
+    public long nextLong() {
+        if (!hasNext())
+            throw new NoSuchElementException();
+
+        int winner = tree[0];
+        long value = runs[winner][positions[winner]++];
+
+        // replay the matches on the path from the winner's leaf to the root
+        for (int node = (winner + k) >> 1; node > 0; node >>= 1) {
+            if (beats(tree[node], winner)) {
+                int tmp = tree[node];
+                tree[node] = winner;
+                winner = tmp;
+            }
+        }
+        tree[0] = winner;
+        return value;
+    }
+
+    /** Index of the run the next value will come from */
+    public int peekRun() {
+        if (!hasNext())
+            throw new NoSuchElementException();
+        return tree[0];
+    }
+}
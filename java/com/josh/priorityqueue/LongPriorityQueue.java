@@ -0,0 +1,186 @@
+package com.josh.priorityqueue;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * a max priority queue specialised for long values
+ *
+ * same layout as {@link PriorityQueue} but items live in a long[] so adding and
+ * polling never boxes values
+ */
+public class LongPriorityQueue {
+    private static final int DEFAULT_CAPACITY = 8;
+
+    /** items are stored here */
+    private long[] heap;
+
+    /** Number of items in the heap */
+    private int size;
+
+    public static void main(String[] args) {
+        long[] items = { 20, 1, 3, 12, 33, 1, 16, 0, 4, 2, 13 };
+        LongPriorityQueue heap = new LongPriorityQueue(items);
+        System.out.println(heap);
+        heap.add(40);
+        System.out.println(heap);
+        heap.poll();
+        System.out.println(heap);
+        heap.remove(20);
+        System.out.println(heap);
+    }
+
+    public LongPriorityQueue() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public LongPriorityQueue(int size) {
+        if (size < 0)
+            throw new IllegalArgumentException("Invalid size: " + size);
+        heap = new long[Math.max(1, size)];
+    }
+
+    /** HEAPIFY */
+    public LongPriorityQueue(long[] items) {
+        heap = Arrays.copyOf(items, Math.max(1, items.length));
+        size = items.length;
+        for (int i = (size >>> 1) - 1; i >= 0; --i)
+            bubbleDown(i);
+    }
+
+    private void bubbleDown(int i) {
+        long[] heap = this.heap;
+        long node = heap[i];
+        int half = size >>> 1;
+
+        while (i < half) {
+            int child = (i << 1) + 1;
+            int right = child + 1;
+            if (right < size && heap[right] > heap[child])
+                child = right;
+            if (heap[child] <= node)
+                break;
+            heap[i] = heap[child];
+            i = child;
+        }
+        heap[i] = node;
+    }
+
+    private void bubbleUp(int i) {
+        long[] heap = this.heap;
+        long node = heap[i];
+
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (node <= heap[parent])
+                break;
+            heap[i] = heap[parent];
+            i = parent;
+        }
+        heap[i] = node;
+    }
+
+    /** Grows the backing array by half its current length */
+    private void grow() {
+        int capacity = heap.length;
+        heap = Arrays.copyOf(heap, capacity + Math.max(1, capacity >> 1));
+    }
+
+    public void add(long item) {
+        if (size == heap.length)
+            grow();
+        heap[size] = item;
+        bubbleUp(size++);
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /** Fetch item at the top of the heap */
+    public long peek() {
+        isNotEmptyOrThrow();
+        return heap[0];
+    }
+
+    /** Remove item at the top of the heap */
+    public long poll() {
+        isNotEmptyOrThrow();
+        return removeAt(0);
+    }
+
+    public boolean contains(long item) {
+        return indexOf(item) != -1;
+    }
+
+    private int indexOf(long item) {
+        for (int i = 0; i < size; ++i) {
+            if (heap[i] == item)
+                return i;
+        }
+        return -1;
+    }
+
+    public boolean remove(long item) {
+        int i = indexOf(item);
+        if (i == -1)
+            return false;
+        removeAt(i);
+        return true;
+    }
+
+    public long removeAt(int i) {
+        if (i < 0 || i >= size)
+            throw new IndexOutOfBoundsException("Index: " + i + ", size: " + size);
+
+        long toRemove = heap[i];
+        int lastIndex = --size;
+
+        if (i != lastIndex) {
+            long swappedItem = heap[lastIndex];
+            heap[i] = swappedItem;
+            bubbleDown(i);
+            if (heap[i] == swappedItem)
+                bubbleUp(i);
+        }
+        return toRemove;
+    }
+
+    /**
+     * Utility method for ascertaining that the heap conforms to the max heap
+     * invariant
+     */
+    public boolean isMaxHeap(int k) {
+        // the subtree rooted at k, one level at a time: the children of
+        // [first, last] are [2 * first + 1, 2 * last + 2]
+        for (long first = k, last = k; first < size; first = 2 * first + 1, last = 2 * last + 2) {
+            int end = (int) Math.min(last, size - 1);
+            for (int i = (int) first; i <= end; ++i) {
+                int child = 2 * i + 1;
+                if (child < size && heap[i] < heap[child])
+                    return false;
+                if (child + 1 < size && heap[i] < heap[child + 1])
+                    return false;
+            }
+        }
+        return true;
+    }
+
+    private void isNotEmptyOrThrow() {
+        if (isEmpty())
+            throw new NoSuchElementException("Priority queue underflow");
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.toString(Arrays.copyOf(heap, size));
+    }
+}
@@ -78,22 +78,15 @@ public class MinIndexedHeap<T extends Comparable<T>> {
 
     public boolean contains(int keyIndex) {
         keyInBoundsOrThrow(keyIndex);
-        if (keyIndex >= size)
-            throw new IndexOutOfBoundsException();
-
         return positionMap[keyIndex] != -1;
     }
 
     public int peekMinKeyIndex() {
         isNotEmptyOrThrow();
-        if (positionMap[0] == -1)
-            throw new NullPointerException("Item at index 0 does not exist");
         return inverseMap[0];
     }
 
     public int pollMinKeyIndex() {
-        if (positionMap[0] == -1)
-            throw new NullPointerException("Item at index 0 does not exist");
         int minKeyIndex = peekMinKeyIndex();
         delete(minKeyIndex);
         return minKeyIndex;
@@ -118,7 +111,7 @@ public class MinIndexedHeap<T extends Comparable<T>> {
         positionMap[keyIndex] = size;
         inverseMap[size] = keyIndex;
         values[keyIndex] = value;
-        swim(size);
+        swim(size++);
     }
 
     @SuppressWarnings("unchecked")
@@ -137,8 +130,7 @@ public class MinIndexedHeap<T extends Comparable<T>> {
         T value = (T) values[keyIndex];
         values[keyIndex] = null;
         positionMap[keyIndex] = -1;
-        inverseMap[keyIndex] = -1;
-        --size;
+        inverseMap[size] = -1;
         return value;
     }
 
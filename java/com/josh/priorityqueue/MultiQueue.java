@@ -0,0 +1,165 @@
+package com.josh.priorityqueue;
+
+import java.util.Comparator;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A concurrent, relaxed max priority queue.
+ *
+ * Items are spread over several {@link PriorityQueue} sub heaps, each guarded
+ * by its own lock. add puts the item into a randomly chosen sub heap. poll
+ * looks at the tops of two randomly chosen sub heaps and removes the larger
+ * one. Threads never wait on a busy sub heap, they just try another one, so
+ * there is no single lock for producers to pile up on.
+ *
+ * <b>poll is relaxed</b>: it is not guaranteed to return the global maximum.
+ * It returns an item close to the top. On average only O(number of sub heaps)
+ * items rank higher than it. poll returns null only after it finds every sub
+ * heap empty. add and poll are thread safe. size is exact once all in-flight
+ * operations have finished.
+ */
+@SuppressWarnings("unchecked")
+public class MultiQueue<T> {
+    /** Number of sub heaps to create per thread expected to use the queue */
+    private static final int QUEUES_PER_THREAD = 2;
+
+    private final SubQueue<T>[] queues;
+    private final Comparator<? super T> comparator;
+    private final AtomicInteger size = new AtomicInteger();
+
+    /** A sub heap plus a lock-free snapshot of its top for poll to compare */
+    private static final class SubQueue<T> {
+        final ReentrantLock lock = new ReentrantLock();
+        final PriorityQueue<T> heap;
+        volatile T top;
+
+        SubQueue(Comparator<? super T> comparator) {
+            heap = new PriorityQueue<>(comparator);
+        }
+    }
+
+    public MultiQueue() {
+        this(Runtime.getRuntime().availableProcessors(), null);
+    }
+
+    public MultiQueue(int threads) {
+        this(threads, null);
+    }
+
+    @SuppressWarnings("rawtypes")
+    public MultiQueue(int threads, Comparator<? super T> comparator) {
+        if (threads <= 0)
+            throw new IllegalArgumentException("Invalid thread count: " + threads);
+        this.comparator = comparator;
+        queues = new SubQueue[threads * QUEUES_PER_THREAD];
+        for (int i = 0; i < queues.length; ++i)
+            queues[i] = new SubQueue<>(comparator);
+    }
+
+    /** Add an item to the queue. null cannot be added */
+    public void add(T item) {
+        if (item == null)
+            throw new IllegalArgumentException();
+
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        SubQueue<T> queue;
+        do {
+            queue = queues[random.nextInt(queues.length)];
+        } while (!queue.lock.tryLock());
+
+        // count the item before it can be seen, so a poll that takes it never
+        // brings size below zero and size is never 0 while an item is queued
+        size.incrementAndGet();
+        try {
+            queue.heap.add(item);
+            queue.top = queue.heap.peek();
+        } catch (RuntimeException e) {
+            size.decrementAndGet();
+            throw e;
+        } finally {
+            queue.lock.unlock();
+        }
+    }
+
+    /** Remove an item at or close to the top of the queue */
+    public T poll() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+
+        // sample two sub heaps a few times, then fall back to a full scan so that
+        // an almost empty queue still hands out its last items
+        for (int attempt = 0; attempt < queues.length; ++attempt) {
+            if (size.get() == 0)
+                return null;
+            SubQueue<T> a = queues[random.nextInt(queues.length)];
+            SubQueue<T> b = queues[random.nextInt(queues.length)];
+            T topA = a.top, topB = b.top;
+            if (topA == null && topB == null)
+                continue;
+
+            SubQueue<T> best = topB == null || (topA != null && !greater(topB, topA)) ? a : b;
+            T item = tryPoll(best);
+            if (item != null)
+                return item;
+        }
+
+        for (SubQueue<T> queue : queues) {
+            if (queue.top == null)
+                continue;
+            queue.lock.lock();
+            try {
+                T item = pollLocked(queue);
+                if (item != null)
+                    return item;
+            } finally {
+                queue.lock.unlock();
+            }
+        }
+        return null;
+    }
+
+    /** Fetch an item at or close to the top of the queue without removing it */
+    public T peek() {
+        T best = null;
+        for (SubQueue<T> queue : queues) {
+            T top = queue.top;
+            if (top != null && (best == null || greater(top, best)))
+                best = top;
+        }
+        return best;
+    }
+
+    private T tryPoll(SubQueue<T> queue) {
+        if (!queue.lock.tryLock())
+            return null;
+        try {
+            return pollLocked(queue);
+        } finally {
+            queue.lock.unlock();
+        }
+    }
+
+    private T pollLocked(SubQueue<T> queue) {
+        T item = queue.heap.poll();
+        if (item != null) {
+            queue.top = queue.heap.peek();
+            size.decrementAndGet();
+        }
+        return item;
+    }
+
+    private boolean greater(T a, T b) {
+        if (comparator != null)
+            return comparator.compare(a, b) > 0;
+        return ((Comparable<? super T>) a).compareTo(b) > 0;
+    }
+
+    public int size() {
+        return size.get();
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+}
@@ -0,0 +1,82 @@
+package com.josh.priorityqueue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Compares throughput of {@link MultiQueue} against a {@link PriorityQueue}
+ * behind one global lock, for an increasing number of threads. Every thread
+ * does a mix of 3 adds for every poll.
+ */
+public class MultiQueueBenchmark {
+    private static final int OPERATIONS_PER_THREAD = 1_000_000;
+
+    interface Queue {
+        void add(Integer item);
+
+        Integer poll();
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        int maxThreads = args.length > 0 ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+
+        System.out.printf("%-8s %20s %20s%n", "threads", "locked ops/ms", "multiqueue ops/ms");
+        for (int threads = 1; threads <= maxThreads; threads *= 2) {
+            PriorityQueue<Integer> heap = new PriorityQueue<>();
+            Queue locked = new Queue() {
+                public synchronized void add(Integer item) {
+                    heap.add(item);
+                }
+
+                public synchronized Integer poll() {
+                    return heap.poll();
+                }
+            };
+            MultiQueue<Integer> multiQueue = new MultiQueue<>(threads);
+            Queue relaxed = new Queue() {
+                public void add(Integer item) {
+                    multiQueue.add(item);
+                }
+
+                public Integer poll() {
+                    return multiQueue.poll();
+                }
+            };
+
+            // warm up once, then measure
+            run(locked, threads);
+            run(relaxed, threads);
+            System.out.printf("%-8d %20.0f %20.0f%n", threads, run(locked, threads), run(relaxed, threads));
+        }
+    }
+
+    /** Returns the number of operations completed per millisecond */
+    private static double run(Queue queue, int threads) throws InterruptedException {
+        CountDownLatch start = new CountDownLatch(1);
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; ++t) {
+            workers[t] = new Thread(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < OPERATIONS_PER_THREAD; ++i) {
+                    if ((i & 3) == 3)
+                        queue.poll();
+                    else
+                        queue.add(random.nextInt());
+                }
+            });
+            workers[t].start();
+        }
+
+        long begin = System.nanoTime();
+        start.countDown();
+        for (Thread worker : workers)
+            worker.join();
+        double millis = (System.nanoTime() - begin) / 1e6;
+        return (double) threads * OPERATIONS_PER_THREAD / millis;
+    }
+}
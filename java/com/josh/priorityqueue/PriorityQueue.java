@@ -1,22 +1,35 @@
 package com.josh.priorityqueue;
 
-import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
-import java.util.List;
+import java.util.Comparator;
 
 /**
  * a max priority queue implementation
- * 
+ *
  * also called a Binary Heap
- * 
+ *
  * to reduce complexity from O(n) to O(log n), use a hashmap to look up the
  * items whenever you need to do so[only do so when doing additions and removals
  * frequently because hash maps add a lot of constant overhead->for
  * adding,removing and altering items in the hashmap]
+ *
+ * items are kept in a plain array that is grown manually, so bubbling up and
+ * down does not go through list bounds checks. The ordering comes from the
+ * comparator passed in, or from the items' natural ordering if none is given
  */
-public class PriorityQueue<T extends Comparable<T>> {
+@SuppressWarnings("unchecked")
+public class PriorityQueue<T> {
+    private static final int DEFAULT_CAPACITY = 8;
+
     /** items are stored here */
-    List<T> heap;
+    Object[] heap;
+
+    /** Number of items in the heap */
+    int size;
+
+    /** Decides which of two items has the higher priority */
+    private final Comparator<? super T> comparator;
 
     public static void main(String[] args) {
         Integer[] items2 = { 20, 1, 3, 12, 33, 1, 16, 0, 4, 2, 13 };
@@ -32,134 +45,129 @@ public class PriorityQueue<T extends Comparable<T>> {
     }
 
     public PriorityQueue(int size) {
-        heap = new ArrayList<T>(size);
+        this(size, null);
     }
 
     public PriorityQueue() {
-        heap = new ArrayList<>(1);
+        this(DEFAULT_CAPACITY, null);
+    }
+
+    public PriorityQueue(Comparator<? super T> comparator) {
+        this(DEFAULT_CAPACITY, comparator);
+    }
+
+    public PriorityQueue(int size, Comparator<? super T> comparator) {
+        if (size < 0)
+            throw new IllegalArgumentException("Invalid size: " + size);
+        heap = new Object[Math.max(1, size)];
+        this.comparator = comparator;
     }
 
     /** HEAPIFY */
     public PriorityQueue(T[] items) {
-        int heapSize = items.length;
-        heap = new ArrayList<>(heapSize);
-
-        for (int i = 0; i < heapSize; ++i)
-            heap.add(i, items[i]);
+        this(items, null);
+    }
 
+    /** HEAPIFY */
+    public PriorityQueue(T[] items, Comparator<? super T> comparator) {
+        this.comparator = comparator;
+        heap = Arrays.copyOf(items, Math.max(1, items.length), Object[].class);
+        size = items.length;
+        nullFreeOrThrow();
         sortHeap();
     }
 
     /** HEAPIFY */
     public PriorityQueue(Collection<T> items) {
-        int heapSize = items.size();
-        heap = new ArrayList<>(heapSize);
-        heap.addAll(items);
+        this(items, null);
+    }
+
+    /** HEAPIFY */
+    public PriorityQueue(Collection<T> items, Comparator<? super T> comparator) {
+        this.comparator = comparator;
+        Object[] array = items.toArray();
+        heap = Arrays.copyOf(array, Math.max(1, array.length));
+        size = array.length;
+        nullFreeOrThrow();
         sortHeap();
     }
 
+    /** Floyd's bottom-up heap construction, O(n) */
     private void sortHeap() {
-        for (int i = 0; i < heap.size(); ++i)
+        for (int i = (size >>> 1) - 1; i >= 0; --i)
             bubbleDown(i);
     }
 
-    private void bubbleDown(int parent) {
-        T parentNode = heap.get(parent);
-        // Swap a parent with its child to satisfy the heap invariant
-        if (hasChildren(parent)) {
-            T leftChild = leftChild(parent);
-            T rightChild = rightChild(parent);
-
-            if (greater(leftChild, parentNode) || greater(rightChild, parentNode)) {
-                T biggerNode = greater(leftChild, rightChild) ? leftChild : rightChild;
-                int child = biggerNode.equals(leftChild) ? leftChildIndex(parent) : rightChildIndex(parent);
-                swap(parent, child);
-                // move the child node up the tree repeatedly till the heap invariant is met
-                bubbleUp(parent);
-                // move the initial parent node down the tree till the heap invariant
-                // is met
-                bubbleDown(child);
-            }
-        } else
-            // there might still be a node above the current one with a lower value. if
-            // there is, swap the current node with it
-            bubbleUp(parent);
+    /** Move a node down the tree till the heap invariant is satisfied */
+    private void bubbleDown(int i) {
+        Object[] heap = this.heap;
+        T node = (T) heap[i];
+        int half = size >>> 1;
+
+        // only nodes in the first half of the array have children
+        while (i < half) {
+            int child = leftChildIndex(i);
+            int right = child + 1;
+            if (right < size && greater((T) heap[right], (T) heap[child]))
+                child = right;
+            if (!greater((T) heap[child], node))
+                break;
+            heap[i] = heap[child];
+            i = child;
+        }
+        heap[i] = node;
     }
 
     /** Move a node up the tree till the heap invariant is satisfied */
     private void bubbleUp(int i) {
-        if (hasParent(i)) {
-            int parentIndex = parentIndex(i);
-            T parent = heap.get(parentIndex);
-            T child = heap.get(i);
-
-            if (greater(child, parent)) {
-                swap(i, parentIndex);
-                bubbleUp(parentIndex);
-            }
+        Object[] heap = this.heap;
+        T node = (T) heap[i];
+
+        while (i > 0) {
+            int parent = parentIndex(i);
+            if (!greater(node, (T) heap[parent]))
+                break;
+            heap[i] = heap[parent];
+            i = parent;
         }
-    }
-
-    private boolean hasParent(int i) {
-        int parent = parentIndex(i);
-        return parent >= 0 && parent < heap.size();
+        heap[i] = node;
     }
 
     /** Fetches the index of a node's parent */
     private int parentIndex(int i) {
-        return (i - 1) / 2;
-    }
-
-    private void swap(int i, int swapWith) {
-        T tmp = heap.get(i);
-        heap.set(i, heap.get(swapWith));
-        heap.set(swapWith, tmp);
+        return (i - 1) >>> 1;
     }
 
     private int leftChildIndex(int nodeIndex) {
-        return nodeIndex * 2 + 1;
+        return (nodeIndex << 1) + 1;
     }
 
     private int rightChildIndex(int nodeIndex) {
-        return nodeIndex * 2 + 2;
+        return (nodeIndex << 1) + 2;
     }
 
     /** Checks whether a is greater than b */
     private boolean greater(T a, T b) {
-        if (a == null)
-            return false;
-        if (b == null)
-            return true;
-        return a.compareTo(b) > 0;
+        if (comparator != null)
+            return comparator.compare(a, b) > 0;
+        return ((Comparable<? super T>) a).compareTo(b) > 0;
     }
 
     /** Checks whether a is lesser than b */
     private boolean lesser(T a, T b) {
-        if (a == null)
-            return true;
-        if (b == null)
-            return true;
-        return a.compareTo(b) < 0;
+        if (comparator != null)
+            return comparator.compare(a, b) < 0;
+        return ((Comparable<? super T>) a).compareTo(b) < 0;
     }
 
     private boolean hasChildren(int nodeIndex) {
-        int left = leftChildIndex(nodeIndex);
-        int right = rightChildIndex(nodeIndex);
-        return left < heap.size() || right < heap.size();
-    }
-
-    private T leftChild(int nodeIndex) {
-        int left = leftChildIndex(nodeIndex);
-        if (left < heap.size())
-            return heap.get(left);
-        return null;
+        return leftChildIndex(nodeIndex) < size;
     }
 
-    private T rightChild(int nodeIndex) {
-        int right = rightChildIndex(nodeIndex);
-        if (right < heap.size())
-            return heap.get(right);
-        return null;
+    /** Grows the backing array by half its current length */
+    private void grow() {
+        int capacity = heap.length;
+        heap = Arrays.copyOf(heap, capacity + Math.max(1, capacity >> 1));
     }
 
     /** Add an item to the queue. null cannot be added */
@@ -167,30 +175,36 @@ public class PriorityQueue<T extends Comparable<T>> {
         if (item == null)
             throw new IllegalArgumentException();
 
-        // add item to bottom left most node
-        heap.add(item);
-        int lastIndex = heap.size() - 1;
+        if (size == heap.length)
+            grow();
 
-        bubbleUp(lastIndex);
+        // add item to bottom left most node
+        heap[size] = item;
+        bubbleUp(size++);
     }
 
     public boolean isEmpty() {
-        return heap.size() == 0;
+        return size == 0;
     }
 
     public void clear() {
-        heap.clear();
+        Arrays.fill(heap, 0, size, null);
+        size = 0;
     }
 
     public int size() {
-        return heap.size();
+        return size;
+    }
+
+    public Comparator<? super T> comparator() {
+        return comparator;
     }
 
     /** Fetch item at the top of the heap */
     public T peek() {
         if (isEmpty())
             return null;
-        return heap.get(0);
+        return (T) heap[0];
     }
 
     /** Remove item at the top of the heap */
@@ -198,45 +212,65 @@ public class PriorityQueue<T extends Comparable<T>> {
         return removeAt(0);
     }
 
+    /**
+     * Replace the item at the top of the heap and restore the heap invariant.
+     * Cheaper than a poll followed by an add since the heap is only walked down
+     * once
+     */
+    public T replaceTop(T item) {
+        if (item == null)
+            throw new IllegalArgumentException();
+        if (isEmpty()) {
+            add(item);
+            return null;
+        }
+
+        T top = (T) heap[0];
+        heap[0] = item;
+        bubbleDown(0);
+        return top;
+    }
+
     public boolean contains(T item) {
-        if (isEmpty())
-            return false;
-        for (int i = 0; i < size(); ++i) {
-            if (heap.get(i).equals(item))
-                return true;
+        return indexOf(item) != -1;
+    }
+
+    private int indexOf(Object item) {
+        if (item == null)
+            return -1;
+        for (int i = 0; i < size; ++i) {
+            if (heap[i].equals(item))
+                return i;
         }
-        return false;
+        return -1;
     }
 
     public boolean remove(T item) {
-        if (item == null || isEmpty())
+        int i = indexOf(item);
+        if (i == -1)
             return false;
-        for (int i = 0; i < size(); ++i) {
-            if (heap.get(i).equals(item)) {
-                removeAt(i);
-                return true;
-            }
-        }
-        return false;
+        removeAt(i);
+        return true;
     }
 
     public T removeAt(int i) {
         if (isEmpty())
             return null;
+        if (i < 0 || i >= size)
+            throw new IndexOutOfBoundsException("Index: " + i + ", size: " + size);
 
         // store item in variable before deleting
-        T toRemove = heap.get(i);
-        int lastIndex = size() - 1;
-        int parent = parentIndex(i);
-        T swappedItem = heap.get(lastIndex);
+        T toRemove = (T) heap[i];
+        int lastIndex = --size;
+        T swappedItem = (T) heap[lastIndex];
+        heap[lastIndex] = null;
 
-        swap(i, lastIndex);
-        heap.remove(lastIndex);
-
-        if (greater(swappedItem, heap.get(parent)))
-            bubbleUp(i);
-        else
+        if (i != lastIndex) {
+            heap[i] = swappedItem;
             bubbleDown(i);
+            if (heap[i] == swappedItem)
+                bubbleUp(i);
+        }
 
         return toRemove;
     }
@@ -246,46 +280,37 @@ public class PriorityQueue<T extends Comparable<T>> {
      * invariant
      */
     public boolean isMaxHeap(int k) {
-        int root = k;
-
         // if called from outside the bounds of the heap, return true
         if (k >= size())
             return true;
 
         // if there are no children, there is no need to recurse further stop here
-        if (!hasChildren(root))
+        if (!hasChildren(k))
             return true;
 
         int leftChild = leftChildIndex(k);
         int rightChild = rightChildIndex(k);
+        T rootNode = (T) heap[k];
 
-        T rootNode = heap.get(root);
-
-        // default values account for unavailable nodes
-        boolean rightNodeConforms = true;
-        boolean leftNodeConforms = true;
-
-        // if children exist, ensure they are greater than their parents
+        // if children exist, ensure they are not greater than their parents
         // also recursively check their children to ensure they conform
-        if (leftChild < size()) {
-            T rightNode = heap.get(rightChild);
-            if (lesser(rootNode, rightNode))
-                return false;
-            rightNodeConforms = isMaxHeap(rightChild);
-        }
+        if (leftChild < size && lesser(rootNode, (T) heap[leftChild]))
+            return false;
+        if (rightChild < size && lesser(rootNode, (T) heap[rightChild]))
+            return false;
 
-        if (rightChild < size()) {
-            T leftNode = heap.get(leftChild);
-            if (lesser(rootNode, leftNode))
-                return false;
-            leftNodeConforms = isMaxHeap(leftChild);
-        }
+        return isMaxHeap(leftChild) && isMaxHeap(rightChild);
+    }
 
-        return rightNodeConforms && leftNodeConforms;
+    private void nullFreeOrThrow() {
+        for (int i = 0; i < size; ++i) {
+            if (heap[i] == null)
+                throw new IllegalArgumentException("Null items are not allowed");
+        }
     }
 
     @Override
     public String toString() {
-        return heap.toString();
+        return Arrays.toString(Arrays.copyOf(heap, size));
     }
 }
@@ -0,0 +1,280 @@
+package com.josh.priorityqueue;
+
+import java.util.function.Consumer;
+
+/**
+ * A hierarchical timing wheel for large numbers of timeouts that are mostly
+ * cancelled before they fire.
+ *
+ * Time is split into ticks. Level 0 has one slot per tick, and each level
+ * above it has slots that are 2^wheelBits times wider. A timeout goes into the
+ * lowest level whose range covers its deadline. Each slot is an intrusive
+ * doubly linked list, so schedule and cancel are O(1). When the clock crosses
+ * the start of a higher level slot, that slot's timeouts are moved down one or
+ * more levels ("cascaded"). Timeouts in a level 0 slot fire when their tick is
+ * reached.
+ *
+ * Deadlines past the range of the top level go into a {@link PriorityQueue}
+ * ordered by deadline. They move onto the wheel once they come within range.
+ * Cancelling one of those only marks it. It is thrown away when it reaches the
+ * top of the heap.
+ *
+ * Not thread safe. Deadlines and the clock passed to advance are in whatever
+ * unit tickDuration is given in, eg milliseconds
+ */
+@SuppressWarnings("unchecked")
+public class TimingWheel<T> {
+    private static final int DEFAULT_WHEEL_BITS = 8;
+    private static final int DEFAULT_LEVELS = 4;
+
+    /** Slot marking a timeout that is in the firing list */
+    private static final int FIRING = -2;
+
+    /** A scheduled task. Returned by schedule so the caller can cancel it */
+    public static final class Timeout<T> {
+        private final T task;
+        private final long deadline;
+        private long deadlineTick;
+        private Timeout<T> previous, next;
+        /** Level and slot this timeout is linked into, level == -1 in the heap */
+        private int level = -1, slot = -1;
+        private boolean cancelled, expired;
+        private TimingWheel<T> wheel;
+
+        private Timeout(TimingWheel<T> wheel, T task, long deadline, long deadlineTick) {
+            this.wheel = wheel;
+            this.task = task;
+            this.deadline = deadline;
+            this.deadlineTick = deadlineTick;
+        }
+
+        public T task() {
+            return task;
+        }
+
+        public long deadline() {
+            return deadline;
+        }
+
+        public boolean isCancelled() {
+            return cancelled;
+        }
+
+        public boolean isExpired() {
+            return expired;
+        }
+
+        /** Returns false if the timeout already fired or was already cancelled */
+        public boolean cancel() {
+            if (cancelled || expired)
+                return false;
+            cancelled = true;
+            wheel.cancel(this);
+            return true;
+        }
+    }
+
+    private final long tickDuration, startTime;
+    private final int wheelBits, levels, mask;
+
+    /** Number of ticks covered by all levels together */
+    private final long span;
+
+    /** slots[level][slot] is the head of that slot's list */
+    private final Timeout<T>[][] slots;
+
+    /** Timeouts too far in the future for the wheel, earliest deadline on top */
+    private final PriorityQueue<Timeout<T>> overflow = new PriorityQueue<>(
+            (a, b) -> Long.compare(b.deadlineTick, a.deadlineTick));
+
+    /** Next tick to be processed */
+    private long currentTick;
+
+    /** Timeouts of the tick being processed that have not fired yet */
+    private Timeout<T> firing;
+
+    /** Pending timeouts on the wheel and in the heap */
+    private int wheelCount, overflowCount;
+
+    public TimingWheel(long tickDuration, long startTime) {
+        this(tickDuration, startTime, DEFAULT_WHEEL_BITS, DEFAULT_LEVELS);
+    }
+
+    @SuppressWarnings("rawtypes")
+    public TimingWheel(long tickDuration, long startTime, int wheelBits, int levels) {
+        if (tickDuration <= 0)
+            throw new IllegalArgumentException("Invalid tick duration: " + tickDuration);
+        if (wheelBits <= 0 || levels <= 0 || (long) wheelBits * levels >= 62)
+            throw new IllegalArgumentException("Invalid wheel shape: " + wheelBits + " bits x " + levels + " levels");
+
+        this.tickDuration = tickDuration;
+        this.startTime = startTime;
+        this.wheelBits = wheelBits;
+        this.levels = levels;
+        mask = (1 << wheelBits) - 1;
+        span = 1L << (wheelBits * levels);
+        slots = new Timeout[levels][1 << wheelBits];
+    }
+
+    /**
+     * Schedule a task to expire once the clock reaches deadline. A deadline
+     * that has already passed fires on the next tick. Long.MAX_VALUE can be
+     * used for a deadline that never comes: a deadline too far from startTime
+     * for deadline - startTime to fit in a long is taken to be as far as
+     * possible in that direction
+     */
+    public Timeout<T> schedule(T task, long deadline) {
+        if (task == null)
+            throw new IllegalArgumentException("Null task");
+
+        long ticks = deadline - startTime;
+        // the subtraction overflowed if its operands have different signs and
+        // the result's sign differs from deadline's
+        if (((deadline ^ startTime) & (deadline ^ ticks)) < 0)
+            ticks = deadline > startTime ? Long.MAX_VALUE : Long.MIN_VALUE;
+
+        // round up so that a timeout never fires before its deadline, without
+        // adding tickDuration - 1 first, which could overflow
+        long deadlineTick = ticks <= 0 ? 0 : ticks / tickDuration + (ticks % tickDuration != 0 ? 1 : 0);
+        Timeout<T> timeout = new Timeout<>(this, task, deadline, deadlineTick);
+        place(timeout);
+        return timeout;
+    }
+
+    /**
+     * Move the clock forward to now, passing the task of every timeout whose
+     * deadline has been reached to onExpire, earlier ticks first
+     */
+    public void advance(long now, Consumer<? super T> onExpire) {
+        long targetTick = (now - startTime) / tickDuration;
+
+        while (currentTick <= targetTick) {
+            // nothing on the wheel, so no tick in between can fire or cascade
+            if (wheelCount == 0) {
+                if (overflowCount == 0) {
+                    currentTick = targetTick + 1;
+                    return;
+                }
+                long nextDeadline = Math.max(currentTick, overflow.peek().deadlineTick - span + 1);
+                if (nextDeadline > targetTick) {
+                    currentTick = targetTick + 1;
+                    return;
+                }
+                currentTick = nextDeadline;
+            }
+            processTick(onExpire);
+        }
+    }
+
+    private void processTick(Consumer<? super T> onExpire) {
+        long tick = currentTick;
+
+        // pull in timeouts from the heap that the wheel can now hold
+        while (!overflow.isEmpty() && overflow.peek().deadlineTick - tick < span) {
+            Timeout<T> timeout = overflow.poll();
+            if (!timeout.cancelled) {
+                --overflowCount;
+                place(timeout);
+            }
+        }
+
+        // cascade from the top down so timeouts can fall through several levels
+        for (int level = levels - 1; level > 0; --level) {
+            int shift = wheelBits * level;
+            if ((tick & ((1L << shift) - 1)) == 0)
+                cascade(level, (int) ((tick >>> shift) & mask));
+        }
+
+        // detach the slot and move the clock past it before any callback runs,
+        // so a timeout scheduled or rescheduled from onExpire lands on a later
+        // tick instead of the slot being emptied
+        int slot = (int) (tick & mask);
+        firing = slots[0][slot];
+        slots[0][slot] = null;
+        for (Timeout<T> timeout = firing; timeout != null; timeout = timeout.next)
+            timeout.slot = FIRING;
+        ++currentTick;
+
+        while (firing != null) {
+            Timeout<T> timeout = firing;
+            firing = timeout.next;
+            if (firing != null)
+                firing.previous = null;
+            timeout.next = null;
+            timeout.level = timeout.slot = -1;
+            timeout.expired = true;
+            --wheelCount;
+            onExpire.accept(timeout.task);
+        }
+    }
+
+    private void cascade(int level, int slot) {
+        Timeout<T> timeout = slots[level][slot];
+        slots[level][slot] = null;
+        while (timeout != null) {
+            Timeout<T> next = timeout.next;
+            timeout.previous = timeout.next = null;
+            --wheelCount;
+            place(timeout);
+            timeout = next;
+        }
+    }
+
+    /** Link a timeout into the level that covers its deadline */
+    private void place(Timeout<T> timeout) {
+        if (timeout.deadlineTick < currentTick)
+            timeout.deadlineTick = currentTick;
+
+        long delta = timeout.deadlineTick - currentTick;
+        if (delta >= span) {
+            timeout.level = timeout.slot = -1;
+            overflow.add(timeout);
+            ++overflowCount;
+            return;
+        }
+
+        int level = 0;
+        while (delta >= 1L << (wheelBits * (level + 1)))
+            ++level;
+        int slot = (int) ((timeout.deadlineTick >>> (wheelBits * level)) & mask);
+
+        Timeout<T> head = slots[level][slot];
+        timeout.next = head;
+        timeout.previous = null;
+        if (head != null)
+            head.previous = timeout;
+        slots[level][slot] = timeout;
+        timeout.level = level;
+        timeout.slot = slot;
+        ++wheelCount;
+    }
+
+    private void cancel(Timeout<T> timeout) {
+        if (timeout.level == -1) {
+            // removed lazily once it reaches the top of the heap
+            --overflowCount;
+            return;
+        }
+
+        if (timeout.previous != null)
+            timeout.previous.next = timeout.next;
+        else if (timeout.slot == FIRING)
+            firing = timeout.next;
+        else
+            slots[timeout.level][timeout.slot] = timeout.next;
+        if (timeout.next != null)
+            timeout.next.previous = timeout.previous;
+        timeout.previous = timeout.next = null;
+        timeout.level = timeout.slot = -1;
+        --wheelCount;
+    }
+
+    /** Number of timeouts that have neither fired nor been cancelled */
+    public int size() {
+        return wheelCount + overflowCount;
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+}
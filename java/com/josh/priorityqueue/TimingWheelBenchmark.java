@@ -0,0 +1,98 @@
+package com.josh.priorityqueue;
+
+import java.util.Random;
+
+/**
+ * Compares a {@link TimingWheel} against a plain {@link PriorityQueue} used as
+ * a timeout queue. Every timer gets a deadline within the next minute, 95% of
+ * them are cancelled before they fire, and the clock moves 1ms per round.
+ * Prints the average cost of schedule, cancel and advance for both.
+ */
+public class TimingWheelBenchmark {
+    private static final int TIMERS = 100_000;
+    private static final double CANCEL_RATIO = 0.95;
+    private static final int MAX_DELAY_MS = 60_000;
+
+    /** What the heap-only approach stores */
+    private static final class Timer {
+        final long deadline;
+        final int id;
+
+        Timer(long deadline, int id) {
+            this.deadline = deadline;
+            this.id = id;
+        }
+    }
+
+    public static void main(String[] args) {
+        int timers = args.length > 0 ? Integer.parseInt(args[0]) : TIMERS;
+        long[] deadlines = new long[timers];
+        boolean[] cancelled = new boolean[timers];
+        Random random = new Random(42);
+        for (int i = 0; i < timers; ++i) {
+            deadlines[i] = 1 + random.nextInt(MAX_DELAY_MS);
+            cancelled[i] = random.nextDouble() < CANCEL_RATIO;
+        }
+
+        // warm up once, then measure
+        runHeap(deadlines, cancelled, false);
+        runWheel(deadlines, cancelled, false);
+        System.out.printf("%-8s %14s %14s %14s %10s%n", "", "schedule ns", "cancel ns", "advance ns", "fired");
+        runHeap(deadlines, cancelled, true);
+        runWheel(deadlines, cancelled, true);
+    }
+
+    private static void runHeap(long[] deadlines, boolean[] cancelled, boolean print) {
+        PriorityQueue<Timer> heap = new PriorityQueue<>((a, b) -> Long.compare(b.deadline, a.deadline));
+        Timer[] handles = new Timer[deadlines.length];
+
+        long begin = System.nanoTime();
+        for (int i = 0; i < deadlines.length; ++i)
+            heap.add(handles[i] = new Timer(deadlines[i], i));
+        long scheduled = System.nanoTime();
+        for (int i = 0; i < deadlines.length; ++i) {
+            if (cancelled[i])
+                heap.remove(handles[i]);
+        }
+        long cancelledAt = System.nanoTime();
+        int fired = 0;
+        for (long now = 0; now <= MAX_DELAY_MS; ++now) {
+            while (!heap.isEmpty() && heap.peek().deadline <= now) {
+                heap.poll();
+                ++fired;
+            }
+        }
+        long end = System.nanoTime();
+
+        if (print)
+            report("heap", deadlines.length, scheduled - begin, cancelledAt - scheduled, end - cancelledAt, fired);
+    }
+
+    private static void runWheel(long[] deadlines, boolean[] cancelled, boolean print) {
+        TimingWheel<Integer> wheel = new TimingWheel<>(1, 0);
+        @SuppressWarnings({ "unchecked", "rawtypes" })
+        TimingWheel.Timeout<Integer>[] handles = new TimingWheel.Timeout[deadlines.length];
+        int[] fired = new int[1];
+
+        long begin = System.nanoTime();
+        for (int i = 0; i < deadlines.length; ++i)
+            handles[i] = wheel.schedule(i, deadlines[i]);
+        long scheduled = System.nanoTime();
+        for (int i = 0; i < deadlines.length; ++i) {
+            if (cancelled[i])
+                handles[i].cancel();
+        }
+        long cancelledAt = System.nanoTime();
+        for (long now = 0; now <= MAX_DELAY_MS; ++now)
+            wheel.advance(now, id -> ++fired[0]);
+        long end = System.nanoTime();
+
+        if (print)
+            report("wheel", deadlines.length, scheduled - begin, cancelledAt - scheduled, end - cancelledAt, fired[0]);
+    }
+
+    private static void report(String name, int timers, long schedule, long cancel, long advance, int fired) {
+        System.out.printf("%-8s %14.1f %14.1f %14.1f %10d%n", name, (double) schedule / timers,
+                (double) cancel / timers, (double) advance / (MAX_DELAY_MS + 1), fired);
+    }
+}
@@ -0,0 +1,122 @@
+package com.josh.priorityqueue;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Keeps the K largest items seen in a stream using O(min(K, items seen))
+ * memory.
+ *
+ * The items are held in a {@link PriorityQueue} with its ordering reversed, so
+ * the smallest kept item sits at the root. Once K items are held, a new item is
+ * only kept if it beats the root, in which case it replaces the root in a
+ * single pass down the heap.
+ *
+ * Partial results from parallel workers can be combined with
+ * {@link #merge(TopK)}
+ */
+@SuppressWarnings("unchecked")
+public class TopK<T> {
+    /** The heap starts this small and grows as it fills, up to k */
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final int k;
+    private final Comparator<? super T> comparator;
+
+    /** min heap of the best items seen so far */
+    private final PriorityQueue<T> heap;
+
+    public static void main(String[] args) {
+        TopK<Integer> first = new TopK<>(3), second = new TopK<>(3);
+        for (int i : new int[] { 20, 1, 3, 12, 33, 1 })
+            first.offer(i);
+        for (int i : new int[] { 16, 0, 4, 2, 13, 40 })
+            second.offer(i);
+        System.out.println(first.toSortedList());
+        System.out.println(second.toSortedList());
+        first.merge(second);
+        System.out.println(first.toSortedList());
+    }
+
+    public TopK(int k) {
+        this(k, null);
+    }
+
+    public TopK(int k, Comparator<? super T> comparator) {
+        if (k <= 0)
+            throw new IllegalArgumentException("k <= 0");
+        this.k = k;
+        this.comparator = comparator;
+        heap = new PriorityQueue<>(Math.min(k, INITIAL_CAPACITY), (a, b) -> compare(b, a));
+    }
+
+    private int compare(T a, T b) {
+        if (comparator != null)
+            return comparator.compare(a, b);
+        return ((Comparable<? super T>) a).compareTo(b);
+    }
+
+    /** Offer an item from the stream. Returns true if it is currently kept */
+    public boolean offer(T item) {
+        if (item == null)
+            throw new IllegalArgumentException();
+
+        if (heap.size() < k) {
+            heap.add(item);
+            return true;
+        }
+        if (compare(item, heap.peek()) <= 0)
+            return false;
+        heap.replaceTop(item);
+        return true;
+    }
+
+    /**
+     * Fold the items kept by another collector into this one. Merging a
+     * collector into itself changes nothing
+     */
+    public void merge(TopK<? extends T> other) {
+        // offering replaces items in the very array being read
+        if (other == this)
+            return;
+        Object[] items = other.heap.heap;
+        for (int i = 0; i < other.heap.size(); ++i)
+            offer((T) items[i]);
+    }
+
+    /** Smallest item that is still in the top K, or null if nothing is kept */
+    public T threshold() {
+        return heap.peek();
+    }
+
+    public int size() {
+        return heap.size();
+    }
+
+    public int k() {
+        return k;
+    }
+
+    public boolean isEmpty() {
+        return heap.isEmpty();
+    }
+
+    public void clear() {
+        heap.clear();
+    }
+
+    /** Fetch the kept items, largest first */
+    public List<T> toSortedList() {
+        List<T> items = new ArrayList<>(heap.size());
+        for (int i = 0; i < heap.size(); ++i)
+            items.add((T) heap.heap[i]);
+        items.sort((a, b) -> compare(b, a));
+        return items;
+    }
+
+    @Override
+    public String toString() {
+        return toSortedList().toString();
+    }
+}